@@ -1,22 +1,43 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.BatchItemResult;
+import ru.yandex.practicum.filmorate.dto.ByIdsResponse;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FilmFilter;
+import ru.yandex.practicum.filmorate.dto.FilmSuggestionDto;
+import ru.yandex.practicum.filmorate.dto.LikeBatchItem;
 import ru.yandex.practicum.filmorate.dto.NewFilmRequest;
 import ru.yandex.practicum.filmorate.dto.UpdateFilmRequest;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmTitleTrie;
+import java.time.LocalDate;
 import java.util.*;
 
 @Validated
 @RestController
 @RequestMapping("/films")
 public class FilmController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_IDS_IN_QUERY = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_LIKES_BATCH_SIZE = 10_000;
+
     private final FilmService filmService;
 
     public FilmController(FilmService filmService) {
@@ -36,16 +57,72 @@ public class FilmController {
                 .ok(filmService.update(updateFilmRequest));
     }
 
+    /**
+     * ETag — версия строки фильма. Если она совпала с If-None-Match, ответ 304 отдаётся
+     * без сборки и сериализации FilmDto.
+     */
     @GetMapping("/{filmId}")
-    public ResponseEntity<FilmDto> findById(@PathVariable @NotNull @Positive Long filmId) {
+    public ResponseEntity<FilmDto> findById(@PathVariable @NotNull @Positive Long filmId, WebRequest request) {
+        long version = filmService.getFilmVersion(filmId);
+        String etag = String.valueOf(version);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .build();
+        }
+        return ResponseEntity
+                .ok()
+                .eTag(etag)
+                .body(filmService.findById(filmId, version));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
         return ResponseEntity
-                .ok(filmService.findById(filmId));
+                .ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(filmService::exportFilms);
     }
 
     @GetMapping
-    public ResponseEntity<Collection<FilmDto>> findAll() {
+    public ResponseEntity<Collection<FilmDto>> findAll(@RequestParam(required = false) @PositiveOrZero Long after,
+                                                       @RequestParam(required = false)
+                                                       @Positive @Max(MAX_PAGE_SIZE) Integer limit,
+                                                       @RequestParam(required = false) Set<@Positive Long> genreIds,
+                                                       @RequestParam(required = false) @Positive Long mpaId,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                       LocalDate releasedFrom,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                       LocalDate releasedTo,
+                                                       @RequestParam(required = false) @Positive Integer minDuration) {
+        FilmFilter filter = FilmFilter.builder()
+                .genreIds(genreIds)
+                .mpaId(mpaId)
+                .releasedFrom(releasedFrom)
+                .releasedTo(releasedTo)
+                .minDuration(minDuration)
+                .build();
         return ResponseEntity
-                .ok(filmService.findAll());
+                .ok(filmService.findAll(filter, after, limit));
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<ByIdsResponse<FilmDto>> findByIds(@RequestParam
+                                                            @NotEmpty @Size(max = MAX_IDS_IN_QUERY)
+                                                            List<@NotNull @Positive Long> ids) {
+        return ResponseEntity
+                .ok(filmService.findByIds(ids));
+    }
+
+    @PostMapping("/by-ids")
+    public ResponseEntity<ByIdsResponse<FilmDto>> findByIdsInBody(@RequestBody
+                                                                  @NotEmpty @Size(max = MAX_PAGE_SIZE)
+                                                                  List<@NotNull @Positive Long> ids) {
+        return ResponseEntity
+                .ok(filmService.findByIds(ids));
     }
 
     @PutMapping("/{filmId}/like/{userId}")
@@ -62,10 +139,46 @@ public class FilmController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/likes:batch")
+    public ResponseEntity<List<BatchItemResult>> applyLikesBatch(@RequestBody
+                                                                 @NotEmpty
+                                                                 @Size(max = MAX_LIKES_BATCH_SIZE)
+                                                                 List<LikeBatchItem> items) {
+        return ResponseEntity
+                .ok(filmService.applyLikesBatch(items));
+    }
+
     @GetMapping("/popular")
     public ResponseEntity<List<FilmDto>> getMostPopularFilms(@RequestParam(defaultValue = "10")
-                                                             @NotNull @Positive Integer count) {
+                                                             @NotNull @Positive Integer count,
+                                                             @RequestParam(required = false) @Positive Long genreId,
+                                                             @RequestParam(required = false) @Positive Long mpaId,
+                                                             @RequestParam(required = false) @Positive Integer year) {
+        return ResponseEntity
+                .ok(filmService.getTopPopularFilms(count, genreId, mpaId, year));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<FilmDto>> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                                          @RequestParam(defaultValue = "10")
+                                                          @NotNull @Positive Integer count) {
+        return ResponseEntity
+                .ok(filmService.getTrendingFilms(window, count));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<FilmDto>> searchFilms(@RequestParam @NotBlank String q,
+                                                     @RequestParam(defaultValue = "10")
+                                                     @Positive @Max(MAX_SEARCH_RESULTS) Integer limit) {
+        return ResponseEntity
+                .ok(filmService.searchFilms(q, limit));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<FilmSuggestionDto>> autocomplete(@RequestParam @NotBlank String prefix,
+                                                                @RequestParam(defaultValue = "10")
+                                                                @Positive @Max(FilmTitleTrie.TOP_K) Integer limit) {
         return ResponseEntity
-                .ok(filmService.getTopPopularFilms(count));
+                .ok(filmService.autocomplete(prefix, limit));
     }
 }
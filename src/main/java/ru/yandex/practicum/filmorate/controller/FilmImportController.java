@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.service.FilmBulkImporter;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Путь /films:bulk нельзя объявить в FilmController: к префиксу /films он добавился бы через «/».
+ */
+@RestController
+public class FilmImportController {
+    private final FilmBulkImporter filmBulkImporter;
+
+    public FilmImportController(FilmBulkImporter filmBulkImporter) {
+        this.filmBulkImporter = filmBulkImporter;
+    }
+
+    @PostMapping(value = "/films:bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<FilmImportResult>> importFilms(InputStream body) {
+        return ResponseEntity
+                .ok(filmBulkImporter.importFilms(body));
+    }
+}
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,11 +12,14 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.dto.GenreDto;
 import ru.yandex.practicum.filmorate.service.GenreService;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Validated
 @RestController
 @RequestMapping("/genres")
 public class GenreController {
+    private static final CacheControl REFERENCE_DATA_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
     private final GenreService genreService;
 
     public GenreController(GenreService genreService) {
@@ -24,13 +28,29 @@ public class GenreController {
 
     @GetMapping("/{genreId}")
     public ResponseEntity<GenreDto> findById(@PathVariable @NotNull @Positive Long genreId) {
+        GenreDto genre = genreService.findById(genreId);
         return ResponseEntity
-                .ok(genreService.findById(genreId));
+                .ok()
+                .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+                .eTag(etagOf(genre))
+                .body(genre);
     }
 
     @GetMapping
     public ResponseEntity<List<GenreDto>> findAll() {
+        List<GenreDto> genres = genreService.findAll();
         return ResponseEntity
-                .ok(genreService.findAll());
+                .ok()
+                .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+                .eTag(etagOf(genres))
+                .body(genres);
+    }
+
+    /**
+     * Справочник отдаётся из кэша, поэтому ETag считается по содержимому: хэш DTO детерминирован
+     * и совпадает на всех экземплярах приложения. Совпавший If-None-Match Spring превращает в 304.
+     */
+    private static String etagOf(Object body) {
+        return Integer.toHexString(body.hashCode());
     }
-}
\ No newline at end of file
+}
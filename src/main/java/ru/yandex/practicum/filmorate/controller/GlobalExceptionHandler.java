@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.ErrorResponse;
 import ru.yandex.practicum.filmorate.model.ValidationError;
@@ -45,6 +46,14 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(errors);
     }
 
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler({ServiceUnavailableException.class})
+    public ErrorResponse handleServiceUnavailableException(ServiceUnavailableException exception) {
+        log.error("Сервис временно недоступен: {}", exception.getMessage());
+        List<ValidationError> errors = Collections.singletonList(new ValidationError(null, exception.getMessage(), null));
+        return new ErrorResponse(errors);
+    }
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Exception.class)
     public ErrorResponse handleException(Exception exception) {
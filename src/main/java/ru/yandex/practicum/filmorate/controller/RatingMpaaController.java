@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,11 +12,14 @@ import org.springframework.web.bind.annotation.RestController;
 import ru.yandex.practicum.filmorate.dto.RatingMpaaDto;
 import ru.yandex.practicum.filmorate.service.RatingMpaaService;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Validated
 @RestController
 @RequestMapping("/mpa")
 public class RatingMpaaController {
+    private static final CacheControl REFERENCE_DATA_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic();
+
     private final RatingMpaaService ratingMpaaService;
 
     public RatingMpaaController(RatingMpaaService ratingMpaaService) {
@@ -24,13 +28,29 @@ public class RatingMpaaController {
 
     @GetMapping("/{ratingId}")
     public ResponseEntity<RatingMpaaDto> findById(@PathVariable @NotNull @Positive Long ratingId) {
+        RatingMpaaDto rating = ratingMpaaService.getRatingMpaaDtoById(ratingId);
         return ResponseEntity
-                .ok(ratingMpaaService.getRatingMpaaDtoById(ratingId));
+                .ok()
+                .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+                .eTag(etagOf(rating))
+                .body(rating);
     }
 
     @GetMapping
     public ResponseEntity<List<RatingMpaaDto>> findAll() {
+        List<RatingMpaaDto> ratings = ratingMpaaService.findAll();
         return ResponseEntity
-                .ok(ratingMpaaService.findAll());
+                .ok()
+                .cacheControl(REFERENCE_DATA_CACHE_CONTROL)
+                .eTag(etagOf(ratings))
+                .body(ratings);
+    }
+
+    /**
+     * Справочник отдаётся из кэша, поэтому ETag считается по содержимому: хэш DTO детерминирован
+     * и совпадает на всех экземплярах приложения. Совпавший If-None-Match Spring превращает в 304.
+     */
+    private static String etagOf(Object body) {
+        return Integer.toHexString(body.hashCode());
     }
-}
\ No newline at end of file
+}
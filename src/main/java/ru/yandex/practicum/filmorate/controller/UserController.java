@@ -1,12 +1,22 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.BatchItemResult;
+import ru.yandex.practicum.filmorate.dto.ByIdsResponse;
+import ru.yandex.practicum.filmorate.dto.FriendshipBatchItem;
 import ru.yandex.practicum.filmorate.dto.NewUserRequest;
 import ru.yandex.practicum.filmorate.dto.UpdateUserRequest;
 import ru.yandex.practicum.filmorate.dto.UserDto;
@@ -17,6 +27,10 @@ import java.util.*;
 @RestController
 @RequestMapping("/users")
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_IDS_IN_QUERY = 100;
+    private static final int MAX_FRIENDSHIPS_BATCH_SIZE = 10_000;
+
     private final UserService userService;
 
     public UserController(UserService userService) {
@@ -36,16 +50,54 @@ public class UserController {
                 .ok(userService.update(updateUserRequest));
     }
 
+    /**
+     * ETag — версия строки пользователя, она растёт и при изменении счётчиков друзей и лайков.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> findById(@PathVariable @NotNull @Positive Long id) {
+    public ResponseEntity<UserDto> findById(@PathVariable @NotNull @Positive Long id, WebRequest request) {
+        String etag = String.valueOf(userService.getUserVersion(id));
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .build();
+        }
         return ResponseEntity
-                .ok(userService.findById(id));
+                .ok()
+                .eTag(etag)
+                .body(userService.findById(id));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userService::exportUsers);
     }
 
     @GetMapping
-    public ResponseEntity<Collection<UserDto>> findAll() {
+    public ResponseEntity<Collection<UserDto>> findAll(@RequestParam(required = false) @PositiveOrZero Long after,
+                                                       @RequestParam(required = false)
+                                                       @Positive @Max(MAX_PAGE_SIZE) Integer limit) {
+        return ResponseEntity
+                .ok(userService.findAll(after, limit));
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<ByIdsResponse<UserDto>> findByIds(@RequestParam
+                                                            @NotEmpty @Size(max = MAX_IDS_IN_QUERY)
+                                                            List<@NotNull @Positive Long> ids) {
+        return ResponseEntity
+                .ok(userService.findByIds(ids));
+    }
+
+    @PostMapping("/by-ids")
+    public ResponseEntity<ByIdsResponse<UserDto>> findByIdsInBody(@RequestBody
+                                                                  @NotEmpty @Size(max = MAX_PAGE_SIZE)
+                                                                  List<@NotNull @Positive Long> ids) {
         return ResponseEntity
-                .ok(userService.findAll());
+                .ok(userService.findByIds(ids));
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -62,16 +114,56 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/friends:batch")
+    public ResponseEntity<List<BatchItemResult>> applyFriendshipsBatch(@RequestBody
+                                                                       @NotEmpty
+                                                                       @Size(max = MAX_FRIENDSHIPS_BATCH_SIZE)
+                                                                       List<FriendshipBatchItem> items) {
+        return ResponseEntity
+                .ok(userService.applyFriendshipsBatch(items));
+    }
+
     @GetMapping("/{id}/friends")
-    public ResponseEntity<List<UserDto>> getFriends(@PathVariable @NotNull @Positive Long id) {
+    public ResponseEntity<List<UserDto>> getFriends(@PathVariable @NotNull @Positive Long id,
+                                                    @RequestParam(required = false) @PositiveOrZero Long after,
+                                                    @RequestParam(required = false)
+                                                    @Positive @Max(MAX_PAGE_SIZE) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity
+                    .ok(userService.getUserFriends(id));
+        }
+        return ResponseEntity
+                .ok(userService.getUserFriendsPage(id, after, limit));
+    }
+
+    @GetMapping("/{id}/followers")
+    public ResponseEntity<List<UserDto>> getFollowers(@PathVariable @NotNull @Positive Long id,
+                                                      @RequestParam(required = false) @PositiveOrZero Long after,
+                                                      @RequestParam(required = false)
+                                                      @Positive @Max(MAX_PAGE_SIZE) Integer limit) {
+        return ResponseEntity
+                .ok(userService.getFollowersPage(id, after, limit));
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public ResponseEntity<List<UserDto>> getFriendSuggestions(@PathVariable @NotNull @Positive Long id,
+                                                              @RequestParam(defaultValue = "10")
+                                                              @NotNull @Positive Integer limit) {
         return ResponseEntity
-                .ok(userService.getUserFriends(id));
+                .ok(userService.getFriendSuggestions(id, limit));
     }
 
     @GetMapping("/{id}/friends/common/{friendId}")
     public ResponseEntity<List<UserDto>> getCommonFriends(@PathVariable @NotNull @Positive Long id,
-                                                      @PathVariable @NotNull @Positive Long friendId) {
+                                                      @PathVariable @NotNull @Positive Long friendId,
+                                                      @RequestParam(required = false) @PositiveOrZero Long after,
+                                                      @RequestParam(required = false)
+                                                      @Positive @Max(MAX_PAGE_SIZE) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity
+                    .ok(userService.getCommonFriends(id, friendId));
+        }
         return ResponseEntity
-                .ok(userService.getCommonFriends(id, friendId));
+                .ok(userService.getCommonFriendsPage(id, friendId, after, limit));
     }
 }
\ No newline at end of file
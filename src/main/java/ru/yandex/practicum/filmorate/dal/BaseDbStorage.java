@@ -2,13 +2,18 @@ package ru.yandex.practicum.filmorate.dal;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 public class BaseDbStorage<T> {
@@ -29,6 +34,20 @@ public class BaseDbStorage<T> {
         return jdbc.query(query, mapper, params);
     }
 
+    /**
+     * Построчный обход результата без сборки списка: драйвер подтягивает строки порциями по fetchSize.
+     */
+    protected void forEachRow(String query, int fetchSize, Consumer<T> consumer, Object... params) {
+        jdbc.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(query);
+            ps.setFetchSize(fetchSize);
+            for (int idx = 0; idx < params.length; idx++) {
+                ps.setObject(idx + 1, params[idx]);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+    }
+
     protected boolean delete(String query, long id) {
         int rowsDeleted = jdbc.update(query, id);
         return rowsDeleted > 0;
@@ -64,4 +83,34 @@ public class BaseDbStorage<T> {
             throw new RuntimeException(CANT_UPDATE);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Вставка всех элементов одним JDBC-пакетом. Сгенерированные ключи возвращаются в порядке элементов.
+     */
+    protected <E> List<Long> insertBatch(String query, List<E> items, ParameterizedPreparedStatementSetter<E> setter) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(connection -> connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int idx) throws SQLException {
+                        setter.setValues(ps, items.get(idx));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return items.size();
+                    }
+                }, keyHolder);
+
+        List<Long> ids = keyHolder.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+        if (ids.size() != items.size()) {
+            throw new RuntimeException(CANT_UPDATE);
+        }
+        return ids;
+    }
+}
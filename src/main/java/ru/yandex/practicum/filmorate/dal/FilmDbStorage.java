@@ -5,27 +5,54 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
+    private static final int FETCH_SIZE = 500;
     private static final String DELETE_FILM_QUERY = "DELETE FROM films WHERE id = ?";
     private static final String IS_FILM_EXISTS_QUERY = "SELECT EXISTS(SELECT 1 FROM films WHERE id = ? LIMIT 1)";
+    private static final String FIND_FILM_VERSION_QUERY = "SELECT version FROM films WHERE id = ?";
+    private static final String FIND_EXISTING_FILMS_IDS_QUERY = "SELECT id FROM films WHERE id IN (:filmsIds)";
     private static final String FIND_ALL_FILMS_QUERY = """
-        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id
+        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id, f.likes_count
         FROM films f
         ORDER BY f.id
         """;
+    private static final String FIND_FILMS_PAGE_QUERY = """
+        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id, f.likes_count
+        FROM films f
+        WHERE f.id > ?
+        ORDER BY f.id
+        LIMIT ?
+        """;
     private static final String FIND_FILM_BY_ID_QUERY = """
-        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id
+        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id, f.likes_count
         FROM films f
         WHERE f.id = ?
         """;
+    private static final String FIND_FILM_DTO_BY_ID_QUERY = """
+        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.likes_count,
+               r.id AS mpa_id, r.name AS mpa_name,
+               ARRAY_AGG(g.id ORDER BY g.id) FILTER (WHERE g.id IS NOT NULL) AS genre_ids,
+               ARRAY_AGG(g.name ORDER BY g.id) FILTER (WHERE g.id IS NOT NULL) AS genre_names
+        FROM films f
+        JOIN rating_mpaa r ON r.id = f.rating_mpaa_id
+        LEFT JOIN film_genres fg ON fg.film_id = f.id
+        LEFT JOIN genres g ON g.id = fg.genre_id
+        WHERE f.id = ?
+        GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.likes_count, r.id, r.name
+        """;
     private static final String FIND_FILMS_BY_IDS_QUERY = """
-        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id
+        SELECT f.id, f.name, f.description, f.release_date, f.duration, f.rating_mpaa_id, f.likes_count
         FROM films f
         WHERE f.id IN (:filmsIds)
         """;
@@ -35,15 +62,17 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
         """;
     private static final String UPDATE_FILM_QUERY = """
         UPDATE films
-        SET name = ?, description = ?, release_date = ?, duration = ?, rating_mpaa_id = ?
+        SET name = ?, description = ?, release_date = ?, duration = ?, rating_mpaa_id = ?, version = version + 1
         WHERE id = ?
         """;
 
     private final NamedParameterJdbcTemplate namedJdbc;
+    private final RowMapper<FilmDto> filmDtoMapper;
 
-    public FilmDbStorage(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+    public FilmDbStorage(JdbcTemplate jdbc, RowMapper<Film> mapper, RowMapper<FilmDto> filmDtoMapper) {
         super(jdbc, mapper);
         this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.filmDtoMapper = filmDtoMapper;
     }
 
     @Override
@@ -59,6 +88,21 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
         return newFilm;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        List<Long> ids = insertBatch(INSERT_FILM_QUERY, films, (ps, film) -> {
+            ps.setString(1, film.getName());
+            ps.setString(2, film.getDescription());
+            ps.setObject(3, film.getReleaseDate());
+            ps.setInt(4, film.getDuration());
+            ps.setLong(5, film.getMpa().getId());
+        });
+        for (int idx = 0; idx < films.size(); idx++) {
+            films.get(idx).setId(ids.get(idx));
+        }
+        return films;
+    }
+
     @Override
     public void update(Film updatingFilm) {
         update(UPDATE_FILM_QUERY,
@@ -75,11 +119,33 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
         return findMany(FIND_ALL_FILMS_QUERY);
     }
 
+    @Override
+    public Optional<FilmDto> findDtoById(Long filmId) {
+        return jdbc.query(FIND_FILM_DTO_BY_ID_QUERY, filmDtoMapper, filmId).stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return findMany(FIND_FILMS_PAGE_QUERY, afterId, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<Film> consumer) {
+        forEachRow(FIND_ALL_FILMS_QUERY, FETCH_SIZE, consumer);
+    }
+
     @Override
     public Optional<Film> findById(Long filmId) {
         return findOne(FIND_FILM_BY_ID_QUERY, filmId);
     }
 
+    @Override
+    public Optional<Long> findVersion(Long filmId) {
+        return jdbc.queryForList(FIND_FILM_VERSION_QUERY, Long.class, filmId).stream()
+                .findFirst();
+    }
+
     @Override
     public boolean delete(Long filmId) {
         return delete(DELETE_FILM_QUERY, filmId);
@@ -95,4 +161,13 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
     public boolean isFilmExists(Long filmId) {
         return jdbc.queryForObject(IS_FILM_EXISTS_QUERY, Boolean.class, filmId);
     }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> filmsIds) {
+        if (filmsIds.isEmpty()) {
+            return Set.of();
+        }
+        MapSqlParameterSource param = new MapSqlParameterSource("filmsIds", filmsIds);
+        return new HashSet<>(namedJdbc.queryForList(FIND_EXISTING_FILMS_IDS_QUERY, param, Long.class));
+    }
 }
@@ -6,6 +6,10 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,6 +21,7 @@ public class FilmGenresDbStorage {
     private static final String DELETE_ALL_GENRES_OF_FILM_QUERY = "DELETE FROM film_genres WHERE film_id = ?";
     private static final String INSERT_QUERY = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
     private static final String GET_GENRES_IDS_OF_FILM_QUERY = "SELECT genre_id FROM film_genres WHERE film_id = ?";
+    private static final String GET_GENRES_IDS_OF_ALL_FILMS_QUERY = "SELECT film_id, genre_id FROM film_genres";
     private static final String GET_GENRES_OF_ONE_FILM_QUERY = """
             SELECT fg.genre_id, g.name AS genre_name
             FROM film_genres fg
@@ -50,6 +55,27 @@ public class FilmGenresDbStorage {
         );
     }
 
+    /**
+     * Связывание нескольких фильмов с жанрами одним пакетом.
+     */
+    public void insert(Map<Long, Set<Long>> genresIdsByFilm) {
+        List<Map.Entry<Long, Long>> links = new ArrayList<>();
+        genresIdsByFilm.forEach((filmId, genresIds) ->
+                genresIds.forEach(genreId -> links.add(Map.entry(filmId, genreId))));
+        if (links.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate(
+                INSERT_QUERY,
+                links,
+                links.size(),
+                (ps, link) -> {
+                    ps.setLong(1, link.getKey());
+                    ps.setLong(2, link.getValue());
+                }
+        );
+    }
+
     public List<Genre> getGenresOfFilm(Long filmId) {
         return jdbc.query(
                         GET_GENRES_OF_ONE_FILM_QUERY,
@@ -71,6 +97,15 @@ public class FilmGenresDbStorage {
                 .collect(Collectors.toSet());
     }
 
+    public Map<Long, Set<Long>> getGenresIdsOfAllFilms() {
+        Map<Long, Set<Long>> result = new HashMap<>();
+        jdbc.query(GET_GENRES_IDS_OF_ALL_FILMS_QUERY, (ResultSet rs) -> {
+            result.computeIfAbsent(rs.getLong("film_id"), filmId -> new HashSet<>())
+                    .add(rs.getLong("genre_id"));
+        });
+        return result;
+    }
+
     public Map<Long, List<Genre>> getGenresByFilmsIds(Set<Long> filmsIds) {
         MapSqlParameterSource params = new MapSqlParameterSource("filmsIds", filmsIds);
         return namedJdbc.query(GET_GENRES_OF_FILMS_QUERY, params, (rs, rowNum) -> {
@@ -1,15 +1,28 @@
 package ru.yandex.practicum.filmorate.dal;
 
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.AddLikeResult;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Repository
@@ -21,27 +34,37 @@ public class FilmLikesDbStorage {
             FROM film_likes
             WHERE user_id = :userId
             """;
-    private static final String GET_LIKES_COUNT_OF_ONE_FILM_QUERY = """
-            SELECT COUNT(user_id)
-            FROM film_likes
-            WHERE film_id = :filmId
-            """;
     private static final String CHECK_USER_ALREADY_LIKED = """
             SELECT COUNT(*)
             FROM film_likes
             WHERE film_id = ? AND user_id = ?
             """;
-    private static final String GET_LIKES_COUNT_OF_FILMS_QUERY = """
-            SELECT film_id, COUNT(user_id) AS likes_count
+    private static final String GET_LIKES_GIVEN_COUNT_OF_USERS_QUERY = """
+            SELECT user_id, COUNT(film_id) AS likes_count
             FROM film_likes
-            WHERE film_id IN (:filmsIds)
-            GROUP BY film_id
+            WHERE user_id IN (:usersIds)
+            GROUP BY user_id
             """;
     private static final String ADD_LIKE_IF_NOT_EXISTS_QUERY = """
-            INSERT INTO film_likes (film_id, user_id)
-            SELECT ?, ?
+            INSERT INTO film_likes (film_id, user_id, liked_at)
+            SELECT ?, ?, ?
             WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)
             """;
+    private static final String ADD_LIKE_QUERY = """
+            INSERT INTO film_likes (film_id, user_id, liked_at)
+            SELECT :filmId, :userId, :likedAt
+            WHERE EXISTS (SELECT 1 FROM films WHERE id = :filmId)
+              AND EXISTS (SELECT 1 FROM users WHERE id = :userId)
+              AND NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = :filmId AND user_id = :userId)
+            """;
+    private static final String CHECK_FILM_AND_USER_EXIST_QUERY = """
+            SELECT EXISTS (SELECT 1 FROM films WHERE id = :filmId) AS film_exists,
+                   EXISTS (SELECT 1 FROM users WHERE id = :userId) AS user_exists
+            """;
+    private static final String DELETE_LIKE_RETURNING_LIKED_AT_QUERY = """
+            SELECT liked_at
+            FROM OLD TABLE (DELETE FROM film_likes WHERE film_id = ? AND user_id = ?)
+            """;
     private static final String GET_TOP_POPULAR_FILMS_IDS_QUERY = """
             SELECT film_id, COUNT(user_id) AS likes_count
             FROM film_likes
@@ -50,6 +73,57 @@ public class FilmLikesDbStorage {
             ORDER BY likes_count DESC
             LIMIT :limit
             """;
+    private static final String GET_LIKES_COUNT_OF_ALL_FILMS_QUERY = """
+            SELECT id AS film_id, likes_count
+            FROM films
+            WHERE likes_count > 0
+            """;
+    private static final String FIND_LIKES_OF_FILMS_BY_USERS_QUERY = """
+            SELECT film_id, user_id, liked_at
+            FROM film_likes
+            WHERE film_id IN (:filmsIds) AND user_id IN (:usersIds)
+            """;
+    private static final String FIND_LIKES_SINCE_QUERY = """
+            SELECT film_id, liked_at
+            FROM film_likes
+            WHERE liked_at >= ?
+            """;
+    private static final String FIND_LIKES_OF_FILMS_SINCE_QUERY = """
+            SELECT film_id, liked_at
+            FROM film_likes
+            WHERE film_id IN (:filmsIds) AND liked_at >= :since
+            """;
+    private static final String CHANGE_LIKES_COUNT_QUERY = """
+            UPDATE films
+            SET likes_count = likes_count + ?, version = version + 1
+            WHERE id = ?
+            """;
+    private static final String RESET_LIKES_COUNT_QUERY = """
+            UPDATE films
+            SET likes_count = 0, version = version + 1
+            WHERE id = ?
+            """;
+    private static final String CHANGE_LIKES_COUNT_RETURNING_QUERY = """
+            SELECT likes_count, version
+            FROM FINAL TABLE (UPDATE films SET likes_count = likes_count + ?, version = version + 1 WHERE id = ?)
+            """;
+    private static final String BUMP_USER_VERSION_QUERY = "UPDATE users SET version = version + 1 WHERE id = ?";
+    private static final String BUMP_VERSIONS_OF_FILM_LIKERS_QUERY = """
+            UPDATE users
+            SET version = version + 1
+            WHERE id IN (SELECT user_id FROM film_likes WHERE film_id = ?)
+            """;
+    private static final String GET_FILMS_CHUNK_UPPER_ID_QUERY = """
+            SELECT MAX(id)
+            FROM (SELECT id FROM films WHERE id > ? ORDER BY id LIMIT ?) AS chunk
+            """;
+    private static final String RECOUNT_LIKES_OF_FILMS_CHUNK_QUERY = """
+            UPDATE films f
+            SET likes_count = (SELECT COUNT(user_id) FROM film_likes fl WHERE fl.film_id = f.id),
+                version = version + 1
+            WHERE f.id > ? AND f.id <= ?
+              AND f.likes_count <> (SELECT COUNT(user_id) FROM film_likes fl WHERE fl.film_id = f.id)
+            """;
 
     private final JdbcTemplate jdbc;
     private final NamedParameterJdbcTemplate namedJdbc;
@@ -63,24 +137,60 @@ public class FilmLikesDbStorage {
         return jdbc.queryForObject(CHECK_USER_ALREADY_LIKED, Integer.class, filmId, userId) > 0;
     }
 
-    public boolean addLikeIfNotExists(Long filmId, Long userId) {
-        return jdbc.update(ADD_LIKE_IF_NOT_EXISTS_QUERY, filmId, userId, filmId, userId) > 0;
+    /**
+     * Добавляет лайк условной вставкой: строка пишется, только если фильм и пользователь существуют,
+     * а лайка ещё нет, поэтому повтор и отсутствие родителя не приводят к ошибке ограничения и транзакция
+     * остаётся рабочей в любой СУБД. Если ничего не вставлено, причина выясняется одним запросом.
+     * Счётчик и версии меняются ещё двумя запросами в той же транзакции: H2 не поддерживает ни изменяющие
+     * данные CTE, ни триггеры на SQL, а MERGE пишет только в одну таблицу.
+     */
+    @Transactional
+    public AddLikeResult addLike(Long filmId, Long userId, LocalDateTime likedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmId", filmId)
+                .addValue("userId", userId)
+                .addValue("likedAt", Timestamp.valueOf(likedAt));
+        if (namedJdbc.update(ADD_LIKE_QUERY, params) == 0) {
+            return namedJdbc.queryForObject(CHECK_FILM_AND_USER_EXIST_QUERY, params, (rs, rowNum) -> {
+                if (rs.getBoolean("film_exists") == false) {
+                    return AddLikeResult.FILM_NOT_FOUND;
+                }
+                return rs.getBoolean("user_exists") ? AddLikeResult.ALREADY_LIKED : AddLikeResult.USER_NOT_FOUND;
+            });
+        }
+        LikeChange change = changeLikesCount(filmId, 1, likedAt);
+        jdbc.update(BUMP_USER_VERSION_QUERY, userId);
+        return AddLikeResult.added(change);
     }
 
-    public int getLikesCountOfFilm(Long filmId) {
-        try {
-            MapSqlParameterSource params = new MapSqlParameterSource("filmId", filmId);
-            return namedJdbc.queryForObject(GET_LIKES_COUNT_OF_ONE_FILM_QUERY, params, Integer.class);
-        } catch (EmptyResultDataAccessException e) {
-            return 0;
+    /**
+     * Удаляет лайк, получая время его постановки тем же запросом.
+     */
+    @Transactional
+    public Optional<LikeChange> deleteLike(Long filmId, Long userId) {
+        Optional<LocalDateTime> likedAt = jdbc.query(DELETE_LIKE_RETURNING_LIKED_AT_QUERY,
+                        (rs, rowNum) -> rs.getTimestamp("liked_at").toLocalDateTime(), filmId, userId)
+                .stream()
+                .findFirst();
+        if (likedAt.isEmpty()) {
+            return Optional.empty();
         }
+        LikeChange change = changeLikesCount(filmId, -1, likedAt.get());
+        jdbc.update(BUMP_USER_VERSION_QUERY, userId);
+        return Optional.of(change);
+    }
+
+    private LikeChange changeLikesCount(Long filmId, int delta, LocalDateTime likedAt) {
+        return jdbc.queryForObject(CHANGE_LIKES_COUNT_RETURNING_QUERY,
+                (rs, rowNum) -> new LikeChange(likedAt, rs.getInt("likes_count"), rs.getLong("version")),
+                delta, filmId);
     }
 
-    public Map<Long, Integer> getLikesCountByFilmsIds(Set<Long> filmsIds) {
-        MapSqlParameterSource params = new MapSqlParameterSource("filmsIds", filmsIds);
-        Map<Long, Integer> result = namedJdbc.query(GET_LIKES_COUNT_OF_FILMS_QUERY, params,
+    public Map<Long, Integer> getLikesGivenCountByUsersIds(Set<Long> usersIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("usersIds", usersIds);
+        Map<Long, Integer> result = namedJdbc.query(GET_LIKES_GIVEN_COUNT_OF_USERS_QUERY, params,
                         (rs, rowNum) -> Map.entry(
-                                rs.getLong("film_id"),
+                                rs.getLong("user_id"),
                                 rs.getInt("likes_count")
                         ))
                 .stream()
@@ -88,7 +198,7 @@ public class FilmLikesDbStorage {
                         Map.Entry::getKey,
                         Map.Entry::getValue
                 ));
-        filmsIds.forEach(filmId -> result.putIfAbsent(filmId, 0));
+        usersIds.forEach(userId -> result.putIfAbsent(userId, 0));
         return result;
     }
 
@@ -123,11 +233,135 @@ public class FilmLikesDbStorage {
                 ));
     }
 
-    public boolean deleteLikeFromFilmIfExists(Long filmId, Long userId) {
-        return jdbc.update(DELETE_LIKE_OF_FILM_QUERY, filmId, userId) > 0;
+    /**
+     * Обходит фильмы с лайками и их likes_count, не собирая результат в коллекцию.
+     */
+    public void forEachLikesCount(BiConsumer<Long, Integer> consumer) {
+        jdbc.query(GET_LIKES_COUNT_OF_ALL_FILMS_QUERY, (ResultSet rs) -> {
+            consumer.accept(rs.getLong("film_id"), rs.getInt("likes_count"));
+        });
     }
 
+    @Transactional
     public boolean deleteAllLikesFromFilmIfExists(Long filmId) {
-        return jdbc.update(DELETE_ALL_LIKES_OF_FILM_QUERY, filmId) > 0;
+        jdbc.update(BUMP_VERSIONS_OF_FILM_LIKERS_QUERY, filmId);
+        if (jdbc.update(DELETE_ALL_LIKES_OF_FILM_QUERY, filmId) == 0) {
+            return false;
+        }
+        jdbc.update(RESET_LIKES_COUNT_QUERY, filmId);
+        return true;
+    }
+
+    public void forEachLikeSince(LocalDateTime since, BiConsumer<Long, LocalDateTime> consumer) {
+        jdbc.query(FIND_LIKES_SINCE_QUERY,
+                (ResultSet rs) -> {
+                    consumer.accept(rs.getLong("film_id"), rs.getTimestamp("liked_at").toLocalDateTime());
+                },
+                Timestamp.valueOf(since));
+    }
+
+    public void forEachLikeOfFilmsSince(Set<Long> filmsIds, LocalDateTime since,
+                                        BiConsumer<Long, LocalDateTime> consumer) {
+        if (filmsIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmsIds", filmsIds)
+                .addValue("since", Timestamp.valueOf(since));
+        namedJdbc.query(FIND_LIKES_OF_FILMS_SINCE_QUERY, params, (ResultSet rs) -> {
+            consumer.accept(rs.getLong("film_id"), rs.getTimestamp("liked_at").toLocalDateTime());
+        });
+    }
+
+    @Transactional
+    public List<FilmLike> addLikesIfNotExist(List<FilmLike> likes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FilmLike> timedLikes = likes.stream()
+                .map(like -> new FilmLike(like.getFilmId(), like.getUserId(),
+                        like.getLikedAt() != null ? like.getLikedAt() : now))
+                .toList();
+        List<FilmLike> addedLikes = filterChanged(timedLikes, batchUpdate(ADD_LIKE_IF_NOT_EXISTS_QUERY, timedLikes,
+                (ps, like) -> {
+                    ps.setLong(1, like.getFilmId());
+                    ps.setLong(2, like.getUserId());
+                    ps.setTimestamp(3, Timestamp.valueOf(like.getLikedAt()));
+                    ps.setLong(4, like.getFilmId());
+                    ps.setLong(5, like.getUserId());
+                }));
+        changeLikesCounts(addedLikes, 1);
+        return addedLikes;
+    }
+
+    @Transactional
+    public List<FilmLike> deleteLikesIfExist(List<FilmLike> likes) {
+        List<FilmLike> timedLikes = findLikes(likes);
+        List<FilmLike> deletedLikes = filterChanged(timedLikes, batchUpdate(DELETE_LIKE_OF_FILM_QUERY, timedLikes,
+                (ps, like) -> {
+                    ps.setLong(1, like.getFilmId());
+                    ps.setLong(2, like.getUserId());
+                }));
+        changeLikesCounts(deletedLikes, -1);
+        return deletedLikes;
+    }
+
+    private List<FilmLike> findLikes(List<FilmLike> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("filmsIds", likes.stream().map(FilmLike::getFilmId).collect(Collectors.toSet()))
+                .addValue("usersIds", likes.stream().map(FilmLike::getUserId).collect(Collectors.toSet()));
+        Map<FilmLike, LocalDateTime> likedAt = new HashMap<>();
+        namedJdbc.query(FIND_LIKES_OF_FILMS_BY_USERS_QUERY, params, (ResultSet rs) -> {
+            likedAt.put(new FilmLike(rs.getLong("film_id"), rs.getLong("user_id")),
+                    rs.getTimestamp("liked_at").toLocalDateTime());
+        });
+
+        return likes.stream()
+                .map(like -> new FilmLike(like.getFilmId(), like.getUserId(), likedAt.get(like)))
+                .toList();
+    }
+
+    private void changeLikesCounts(List<FilmLike> changedLikes, int deltaPerLike) {
+        Map<Long, Integer> deltas = changedLikes.stream()
+                .collect(Collectors.groupingBy(FilmLike::getFilmId, Collectors.summingInt(like -> deltaPerLike)));
+        batchUpdate(CHANGE_LIKES_COUNT_QUERY, deltas.entrySet(),
+                (ps, delta) -> {
+                    ps.setInt(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+        Set<Long> usersIds = changedLikes.stream()
+                .map(FilmLike::getUserId)
+                .collect(Collectors.toSet());
+        batchUpdate(BUMP_USER_VERSION_QUERY, usersIds, (ps, userId) -> ps.setLong(1, userId));
+    }
+
+    private <T> int[] batchUpdate(String query, Collection<T> items, ParameterizedPreparedStatementSetter<T> setter) {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(jdbc.batchUpdate(query, items, items.size(), setter))
+                .flatMapToInt(Arrays::stream)
+                .toArray();
+    }
+
+    private static List<FilmLike> filterChanged(List<FilmLike> likes, int[] rowsUpdated) {
+        List<FilmLike> changed = new ArrayList<>();
+        for (int idx = 0; idx < rowsUpdated.length; idx++) {
+            if (rowsUpdated[idx] > 0) {
+                changed.add(likes.get(idx));
+            }
+        }
+        return changed;
+    }
+
+    public Optional<Long> getFilmsChunkUpperId(long afterFilmId, int chunkSize) {
+        return Optional.ofNullable(
+                jdbc.queryForObject(GET_FILMS_CHUNK_UPPER_ID_QUERY, Long.class, afterFilmId, chunkSize));
+    }
+
+    public int recountLikesOfFilmsChunk(long afterFilmId, long toFilmId) {
+        return jdbc.update(RECOUNT_LIKES_OF_FILMS_CHUNK_QUERY, afterFilmId, toFilmId);
     }
 }
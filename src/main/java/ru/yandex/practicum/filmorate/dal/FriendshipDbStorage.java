@@ -1,22 +1,42 @@
 package ru.yandex.practicum.filmorate.dal;
 
-import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Repository
 public class FriendshipDbStorage {
-    private static final String ADD_FRIEND_REQUEST = """
+    private static final String ADD_FRIEND_IF_NOT_EXISTS_QUERY = """
         INSERT INTO friendship (user_id, friend_id)
-        VALUES (?, ?)
+        SELECT ?, ?
+        WHERE NOT EXISTS (SELECT 1 FROM friendship WHERE user_id = ? AND friend_id = ?)
         """;
+    private static final String CHANGE_FOLLOWERS_COUNT_QUERY = """
+        UPDATE users
+        SET followers_count = followers_count + ?, version = version + 1
+        WHERE id = ?
+        """;
+    private static final String RECOUNT_FOLLOWERS_COUNTS_QUERY = """
+        UPDATE users u
+        SET followers_count = (SELECT COUNT(user_id) FROM friendship f WHERE f.friend_id = u.id),
+            version = version + 1
+        WHERE u.followers_count <> (SELECT COUNT(user_id) FROM friendship f WHERE f.friend_id = u.id)
+        """;
+    private static final String BUMP_USER_VERSION_QUERY = "UPDATE users SET version = version + 1 WHERE id = ?";
     private static final String GET_FRIENDS_IDS_OF_USER_QUERY = """
         SELECT friend_id
         FROM friendship
@@ -38,6 +58,11 @@ public class FriendshipDbStorage {
         JOIN friendship f2 ON f1.friend_id = f2.friend_id
         WHERE f1.user_id = ? AND f2.user_id = ?
         """;
+    private static final String FIND_ALL_FRIENDSHIPS_QUERY = """
+        SELECT user_id, friend_id
+        FROM friendship
+        ORDER BY user_id, friend_id
+        """;
     private static final String GET_FRIENDS_COUNT_OF_ONE_USER_QUERY = """
         SELECT COUNT(friend_id)
         FROM friendship
@@ -58,15 +83,43 @@ public class FriendshipDbStorage {
         this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
     }
 
-    public void addFriend(Long userId, Long friendId) {
-        try {
-            int rowsUpdated = jdbc.update(ADD_FRIEND_REQUEST, userId, friendId);
-            if (rowsUpdated == 0) {
-                throw new RuntimeException("Не удалось добавить запись в БД.");
-            }
-        } catch (DuplicateKeyException e) {
-            throw new RuntimeException("Не удалось добавить запись в БД: дубликат", e);
+    /**
+     * Добавляет дружбу условной вставкой, поэтому повтор не нарушает ограничение и не ломает транзакцию.
+     * Возвращает false, если дружба уже была: счётчик подписчиков и версия тогда не меняются.
+     */
+    @Transactional
+    public boolean addFriend(Long userId, Long friendId) {
+        int rowsInserted = jdbc.update(ADD_FRIEND_IF_NOT_EXISTS_QUERY, userId, friendId, userId, friendId);
+        if (rowsInserted == 0) {
+            return false;
         }
+        jdbc.update(CHANGE_FOLLOWERS_COUNT_QUERY, 1, friendId);
+        jdbc.update(BUMP_USER_VERSION_QUERY, userId);
+        return true;
+    }
+
+    @Transactional
+    public List<Friendship> addFriendsIfNotExist(List<Friendship> friendships) {
+        List<Friendship> added = filterChanged(friendships, batchUpdate(ADD_FRIEND_IF_NOT_EXISTS_QUERY, friendships,
+                (ps, friendship) -> {
+                    ps.setLong(1, friendship.getUserId());
+                    ps.setLong(2, friendship.getFriendId());
+                    ps.setLong(3, friendship.getUserId());
+                    ps.setLong(4, friendship.getFriendId());
+                }));
+        changeFollowersCounts(added, 1);
+        return added;
+    }
+
+    @Transactional
+    public List<Friendship> removeFriendsIfExist(List<Friendship> friendships) {
+        List<Friendship> removed = filterChanged(friendships, batchUpdate(REMOVE_FRIEND_QUERY, friendships,
+                (ps, friendship) -> {
+                    ps.setLong(1, friendship.getUserId());
+                    ps.setLong(2, friendship.getFriendId());
+                }));
+        changeFollowersCounts(removed, -1);
+        return removed;
     }
 
     public List<Long> getFriendsIdsOfUser(Long userId) {
@@ -102,11 +155,68 @@ public class FriendshipDbStorage {
         return jdbc.queryForObject(CHEK_IS_FRIEND_QUERY, Boolean.class, userId, friendId);
     }
 
-    public void removeFriend(Long userId, Long friendId) {
+    @Transactional
+    public boolean removeFriend(Long userId, Long friendId) {
         int rowsDeleted = jdbc.update(REMOVE_FRIEND_QUERY, userId, friendId);
+        if (rowsDeleted == 0) {
+            return false;
+        }
+        jdbc.update(CHANGE_FOLLOWERS_COUNT_QUERY, -1, friendId);
+        jdbc.update(BUMP_USER_VERSION_QUERY, userId);
+        return true;
+    }
+
+    /**
+     * Пересчитывает followers_count по таблице friendship и возвращает число исправленных пользователей.
+     */
+    public int recountFollowersCounts() {
+        return jdbc.update(RECOUNT_FOLLOWERS_COUNTS_QUERY);
     }
 
     public List<Long> getCommonFriends(Long userId, Long otherUserId) {
         return jdbc.queryForList(FIND_COMMON_FRIENDS_QUERY, Long.class, userId, otherUserId);
     }
+
+    private void changeFollowersCounts(List<Friendship> changedFriendships, int deltaPerFriendship) {
+        Map<Long, Integer> deltas = changedFriendships.stream()
+                .collect(Collectors.groupingBy(Friendship::getFriendId,
+                        Collectors.summingInt(friendship -> deltaPerFriendship)));
+        batchUpdate(CHANGE_FOLLOWERS_COUNT_QUERY, deltas.entrySet(),
+                (ps, delta) -> {
+                    ps.setInt(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+        Set<Long> usersIds = changedFriendships.stream()
+                .map(Friendship::getUserId)
+                .collect(Collectors.toSet());
+        batchUpdate(BUMP_USER_VERSION_QUERY, usersIds, (ps, userId) -> ps.setLong(1, userId));
+    }
+
+    private <T> int[] batchUpdate(String query, Collection<T> items, ParameterizedPreparedStatementSetter<T> setter) {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(jdbc.batchUpdate(query, items, items.size(), setter))
+                .flatMapToInt(Arrays::stream)
+                .toArray();
+    }
+
+    private static List<Friendship> filterChanged(List<Friendship> friendships, int[] rowsUpdated) {
+        List<Friendship> changed = new ArrayList<>();
+        for (int idx = 0; idx < rowsUpdated.length; idx++) {
+            if (rowsUpdated[idx] > 0) {
+                changed.add(friendships.get(idx));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Обходит все записи о дружбе, упорядоченные по user_id и friend_id, не собирая их в список.
+     */
+    public void forEachFriendship(BiConsumer<Long, Long> consumer) {
+        jdbc.query(FIND_ALL_FRIENDSHIPS_QUERY, (ResultSet rs) -> {
+            consumer.accept(rs.getLong("user_id"), rs.getLong("friend_id"));
+        });
+    }
 }
\ No newline at end of file
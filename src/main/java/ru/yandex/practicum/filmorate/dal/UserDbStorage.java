@@ -7,38 +7,77 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.model.UserStorage;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 public class UserDbStorage extends BaseDbStorage implements UserStorage {
+    private static final int FETCH_SIZE = 500;
     private static final String DELETE_USER_QUERY = "DELETE FROM users WHERE id = ?";
     private static final String FIND_BY_EMAIL_QUERY = "SELECT * FROM users WHERE email = ?";
     private static final String IS_USER_EXISTS_QUERY = "SELECT EXISTS(SELECT 1 FROM users WHERE id = ?)";
+    private static final String FIND_USER_VERSION_QUERY = "SELECT version FROM users WHERE id = ?";
+    private static final String FIND_EXISTING_USERS_IDS_QUERY = "SELECT id FROM users WHERE id IN (:usersIds)";
     private static final String IS_EMAIL_ALREADY_USE_QUERY = "SELECT EXISTS(SELECT 1 FROM users WHERE email = ?)";
     private static final String FIND_USER_BY_ID_QUERY = """
-        SELECT id, email, login, name, birthday
+        SELECT id, email, login, name, birthday, followers_count
         FROM users
         WHERE id = ?
         """;
     private static final String FIND_USERS_BY_IDS_QUERY = """
-        SELECT id, email, login, name, birthday
+        SELECT id, email, login, name, birthday, followers_count
         FROM users
         WHERE id IN (:usersIds)
         ORDER BY id
         """;
     private static final String FIND_ALL_USERS_QUERY = """
-        SELECT id, email, login, name, birthday
+        SELECT id, email, login, name, birthday, followers_count
         FROM users
         ORDER BY id
         """;
+    private static final String FIND_USERS_PAGE_QUERY = """
+        SELECT id, email, login, name, birthday, followers_count
+        FROM users
+        WHERE id > ?
+        ORDER BY id
+        LIMIT ?
+        """;
+    private static final String FIND_FRIENDS_PAGE_QUERY = """
+        SELECT u.id, u.email, u.login, u.name, u.birthday, u.followers_count
+        FROM friendship f
+        JOIN users u ON u.id = f.friend_id
+        WHERE f.user_id = ? AND f.friend_id > ?
+        ORDER BY f.friend_id
+        LIMIT ?
+        """;
+    private static final String FIND_COMMON_FRIENDS_PAGE_QUERY = """
+        SELECT u.id, u.email, u.login, u.name, u.birthday, u.followers_count
+        FROM friendship f1
+        JOIN friendship f2 ON f2.friend_id = f1.friend_id AND f2.user_id = ?
+        JOIN users u ON u.id = f1.friend_id
+        WHERE f1.user_id = ? AND f1.friend_id > ?
+        ORDER BY f1.friend_id
+        LIMIT ?
+        """;
+    private static final String FIND_FOLLOWERS_PAGE_QUERY = """
+        SELECT u.id, u.email, u.login, u.name, u.birthday, u.followers_count
+        FROM friendship f
+        JOIN users u ON u.id = f.user_id
+        WHERE f.friend_id = ? AND f.user_id > ?
+        ORDER BY f.user_id
+        LIMIT ?
+        """;
     private static final String INSERT_USER_QUERY = """
         INSERT INTO users(email, login, name, birthday)
         VALUES (?, ?, ?, ?)
         """;
     private static final String UPDATE_USER_QUERY = """
         UPDATE users
-        SET email = ?, login = ?, name = ?, birthday = ?
+        SET email = ?, login = ?, name = ?, birthday = ?, version = version + 1
         WHERE id = ?
         """;
 
@@ -71,16 +110,47 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
                 updatingUser.getId());
     }
 
+    @Override
+    public List<User> findFriendsPage(Long userId, long afterId, int limit) {
+        return findMany(FIND_FRIENDS_PAGE_QUERY, userId, afterId, limit);
+    }
+
+    @Override
+    public List<User> findCommonFriendsPage(Long userId, Long otherUserId, long afterId, int limit) {
+        return findMany(FIND_COMMON_FRIENDS_PAGE_QUERY, otherUserId, userId, afterId, limit);
+    }
+
+    @Override
+    public List<User> findFollowersPage(Long userId, long afterId, int limit) {
+        return findMany(FIND_FOLLOWERS_PAGE_QUERY, userId, afterId, limit);
+    }
+
     @Override
     public List<User> findAll() {
         return findMany(FIND_ALL_USERS_QUERY);
     }
 
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return findMany(FIND_USERS_PAGE_QUERY, afterId, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<User> consumer) {
+        forEachRow(FIND_ALL_USERS_QUERY, FETCH_SIZE, consumer);
+    }
+
     @Override
     public Optional<User> findById(Long userId) {
         return findOne(FIND_USER_BY_ID_QUERY, userId);
     }
 
+    @Override
+    public Optional<Long> findVersion(Long userId) {
+        return jdbc.queryForList(FIND_USER_VERSION_QUERY, Long.class, userId).stream()
+                .findFirst();
+    }
+
     @Override
     public Optional<User> findByEmail(String email) {
         return findOne(FIND_BY_EMAIL_QUERY, email);
@@ -96,6 +166,15 @@ public class UserDbStorage extends BaseDbStorage implements UserStorage {
         return jdbc.queryForObject(IS_USER_EXISTS_QUERY, Boolean.class, userId);
     }
 
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> usersIds) {
+        if (usersIds.isEmpty()) {
+            return Set.of();
+        }
+        MapSqlParameterSource param = new MapSqlParameterSource("usersIds", usersIds);
+        return new HashSet<>(namedJdbc.queryForList(FIND_EXISTING_USERS_IDS_QUERY, param, Long.class));
+    }
+
     @Override
     public boolean delete(Long userId) {
         return delete(DELETE_USER_QUERY, userId);
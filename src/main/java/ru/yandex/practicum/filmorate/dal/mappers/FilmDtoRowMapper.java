@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.dal.mappers;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.GenreDto;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaDto;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Собирает полностью заполненный FilmDto из одной строки: рейтинг берётся из соединения с rating_mpaa,
+ * жанры приходят двумя параллельными массивами genre_ids и genre_names.
+ */
+@Component
+public class FilmDtoRowMapper implements RowMapper<FilmDto> {
+    @Override
+    public FilmDto mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        FilmDto filmDto = FilmDto.builder()
+                .id(resultSet.getLong("id"))
+                .name(resultSet.getString("name"))
+                .description(resultSet.getString("description"))
+                .releaseDate(resultSet.getDate("release_date").toLocalDate())
+                .duration(resultSet.getInt("duration"))
+                .mpa(new RatingMpaaDto(resultSet.getLong("mpa_id"), resultSet.getString("mpa_name")))
+                .likesCount(resultSet.getInt("likes_count"))
+                .build();
+
+        Object[] genresIds = toArray(resultSet.getArray("genre_ids"));
+        Object[] genresNames = toArray(resultSet.getArray("genre_names"));
+        for (int idx = 0; idx < genresIds.length; idx++) {
+            filmDto.getGenres().add(new GenreDto(((Number) genresIds[idx]).longValue(), (String) genresNames[idx]));
+        }
+
+        return filmDto;
+    }
+
+    private static Object[] toArray(Array array) throws SQLException {
+        return array != null ? (Object[]) array.getArray() : new Object[0];
+    }
+}
@@ -21,6 +21,7 @@ public class FilmRowMapper implements RowMapper<Film> {
                 .releaseDate(resultSet.getDate("release_date").toLocalDate())
                 .duration(resultSet.getInt("duration"))
                 .mpa(rating)
+                .likesCount(resultSet.getInt("likes_count"))
                 .build();
 
         return film;
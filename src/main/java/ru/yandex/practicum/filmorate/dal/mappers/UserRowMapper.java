@@ -16,6 +16,7 @@ public class UserRowMapper implements RowMapper<User> {
                 .login(resultSet.getString("login"))
                 .name(resultSet.getString("name"))
                 .birthday(resultSet.getDate("birthday").toLocalDate())
+                .followersCount(resultSet.getInt("followers_count"))
                 .build();
         return user;
     }
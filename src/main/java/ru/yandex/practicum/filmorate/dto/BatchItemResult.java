@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    int index;
+    BatchItemStatus status;
+    String message;
+
+    public static BatchItemResult of(int index, BatchItemStatus status) {
+        return new BatchItemResult(index, status, null);
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.dto;
+
+public enum BatchItemStatus {
+    APPLIED,
+    CREATED,
+    UNCHANGED,
+    QUEUED,
+    NOT_FOUND,
+    INVALID,
+    DUPLICATE,
+    FAILED
+}
@@ -8,7 +8,7 @@ import java.util.Comparator;
 import java.util.Set;
 import java.util.TreeSet;
 
-@Builder
+@Builder(toBuilder = true)
 @Data
 @EqualsAndHashCode(of = {"id"})
 public class FilmDto {
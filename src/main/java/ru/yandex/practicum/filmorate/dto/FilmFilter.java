@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.Set;
+
+@Builder
+@Data
+public class FilmFilter {
+    Set<Long> genreIds;
+    Long mpaId;
+    LocalDate releasedFrom;
+    LocalDate releasedTo;
+    Integer minDuration;
+
+    public boolean isEmpty() {
+        return (genreIds == null || genreIds.isEmpty())
+                && mpaId == null
+                && releasedFrom == null
+                && releasedTo == null
+                && minDuration == null;
+    }
+}
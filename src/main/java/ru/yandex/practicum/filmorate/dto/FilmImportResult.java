@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FilmImportResult {
+    int line;
+    BatchItemStatus status;
+    Long filmId;
+    String message;
+
+    public static FilmImportResult created(int line, Long filmId) {
+        return new FilmImportResult(line, BatchItemStatus.CREATED, filmId, null);
+    }
+
+    public static FilmImportResult rejected(int line, BatchItemStatus status, String message) {
+        return new FilmImportResult(line, status, null, message);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmSuggestionDto {
+    Long id;
+    String name;
+    int likesCount;
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.FriendshipOperation;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FriendshipBatchItem {
+    Long userId;
+    Long friendId;
+    FriendshipOperation op;
+}
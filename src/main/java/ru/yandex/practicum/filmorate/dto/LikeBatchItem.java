@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeBatchItem {
+    Long filmId;
+    Long userId;
+    LikeOperation op;
+}
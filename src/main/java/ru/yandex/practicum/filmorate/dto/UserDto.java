@@ -14,4 +14,7 @@ public class UserDto {
     String login;
     String name;
     LocalDate birthday;
+    int followersCount;
+    int friendsCount;
+    int likesGivenCount;
 }
@@ -27,7 +27,8 @@ public final class FilmMapper {
                 .description(film.getDescription())
                 .releaseDate(film.getReleaseDate())
                 .duration(film.getDuration())
-                .mpa(new RatingMpaaDto(film.getId(), null))
+                .mpa(new RatingMpaaDto(film.getMpa().getId(), null))
+                .likesCount(film.getLikesCount())
                 .build();
 
         return filmDto;
@@ -25,10 +25,18 @@ public final class UserMapper {
                 .login(user.getLogin())
                 .name(user.getName())
                 .birthday(user.getBirthday())
+                .followersCount(user.getFollowersCount())
                 .build();
         return userDto;
     }
 
+    public static UserDto mapToUserDto(User user, int friendsCount, int likesGivenCount) {
+        UserDto userDto = mapToUserDto(user);
+        userDto.setFriendsCount(friendsCount);
+        userDto.setLikesGivenCount(likesGivenCount);
+        return userDto;
+    }
+
     public static User updateUserFields(User updatingUser, UpdateUserRequest request) {
         if (request.hasEmail()) {
             updatingUser.setEmail(request.getEmail());
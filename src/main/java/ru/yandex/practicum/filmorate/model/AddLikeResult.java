@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Итог добавления лайка: статус и, если лайк добавлен, записанное изменение.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@EqualsAndHashCode
+@ToString
+public class AddLikeResult {
+    public static final AddLikeResult ALREADY_LIKED = new AddLikeResult(Status.ALREADY_LIKED, null);
+    public static final AddLikeResult FILM_NOT_FOUND = new AddLikeResult(Status.FILM_NOT_FOUND, null);
+    public static final AddLikeResult USER_NOT_FOUND = new AddLikeResult(Status.USER_NOT_FOUND, null);
+
+    final Status status;
+    final LikeChange change;
+
+    public static AddLikeResult added(LikeChange change) {
+        return new AddLikeResult(Status.ADDED, change);
+    }
+
+    public enum Status {
+        ADDED,
+        ALREADY_LIKED,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND
+    }
+}
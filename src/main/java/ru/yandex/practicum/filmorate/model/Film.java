@@ -16,4 +16,5 @@ public class Film {
     LocalDate releaseDate;
     int duration;
     RatingMpaaId mpa;
+    int likesCount;
 }
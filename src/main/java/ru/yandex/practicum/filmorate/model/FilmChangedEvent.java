@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.util.Set;
+
+@AllArgsConstructor
+@Getter
+@ToString
+public class FilmChangedEvent {
+    final Film film;
+    final Set<Long> genresIds;
+
+    public boolean hasGenresIds() {
+        return genresIds != null;
+    }
+}
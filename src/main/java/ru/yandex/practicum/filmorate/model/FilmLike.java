@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(of = {"filmId", "userId"})
+@AllArgsConstructor
+@NoArgsConstructor
+public class FilmLike {
+    Long filmId;
+    Long userId;
+    LocalDateTime likedAt;
+
+    public FilmLike(Long filmId, Long userId) {
+        this(filmId, userId, null);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+/**
+ * Лайк или снятие лайка. likesCount и filmVersion — состояние фильма сразу после изменения;
+ * они известны только для одиночных лайков, пакетные пути их не заполняют.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class FilmLikeEvent {
+    final Long filmId;
+    final Long userId;
+    final boolean liked;
+    final LocalDateTime likedAt;
+    final Integer likesCount;
+    final Long filmVersion;
+
+    public FilmLikeEvent(Long filmId, Long userId, boolean liked, LocalDateTime likedAt) {
+        this(filmId, userId, liked, likedAt, null, null);
+    }
+
+    public FilmLikeEvent(Long filmId, Long userId, boolean liked, LikeChange change) {
+        this(filmId, userId, liked, change.getLikedAt(), change.getLikesCount(), change.getFilmVersion());
+    }
+
+    public int getLikesDelta() {
+        return liked ? 1 : -1;
+    }
+
+    public boolean hasFilmState() {
+        return likesCount != null && filmVersion != null;
+    }
+}
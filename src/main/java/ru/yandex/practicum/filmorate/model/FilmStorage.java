@@ -1,20 +1,48 @@
 package ru.yandex.practicum.filmorate.model;
 
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
     Film create(Film film);
 
+    /**
+     * Пакетная вставка фильмов: ID проставляются в переданные объекты.
+     */
+    List<Film> createAll(List<Film> films);
+
     void update(Film film);
 
     boolean delete(Long filmId);
 
     Optional<Film> findById(Long filmId);
 
+    /**
+     * Версия строки фильма: растёт при каждом изменении, видимом в FilmDto.
+     */
+    Optional<Long> findVersion(Long filmId);
+
+    /**
+     * Фильм вместе с рейтингом, жанрами и количеством лайков, собранный одним запросом.
+     */
+    Optional<FilmDto> findDtoById(Long filmId);
+
     List<Film> findAll();
 
+    /**
+     * Страница фильмов с ID больше afterId по возрастанию ID.
+     */
+    List<Film> findPage(long afterId, int limit);
+
+    void forEach(Consumer<Film> consumer);
+
     List<Film> findBySeveralIds(List<Long> filmsIds);
 
     boolean isFilmExists(Long filmId);
+
+    Set<Long> findExistingIds(Collection<Long> filmsIds);
 }
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import java.time.LocalDateTime;
+
+/**
+ * Изменение лайка, записанное в БД: время постановки лайка и значения likes_count и version фильма
+ * сразу после изменения.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public class LikeChange {
+    final LocalDateTime likedAt;
+    final int likesCount;
+    final long filmVersion;
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+@AllArgsConstructor
+@Getter
+public enum TrendingWindow {
+    HOUR("1h", Duration.ofHours(1)),
+    DAY("24h", Duration.ofHours(24)),
+    WEEK("7d", Duration.ofDays(7));
+
+    final String value;
+    final Duration duration;
+
+    public static Optional<TrendingWindow> fromValue(String value) {
+        return Arrays.stream(values())
+                .filter(window -> window.value.equalsIgnoreCase(value))
+                .findFirst();
+    }
+}
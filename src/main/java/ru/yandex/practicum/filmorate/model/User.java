@@ -14,5 +14,6 @@ public class User {
     String login;
     String name;
     LocalDate birthday;
+    int followersCount;
 }
 
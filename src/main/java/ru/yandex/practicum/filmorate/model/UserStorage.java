@@ -1,7 +1,10 @@
 package ru.yandex.practicum.filmorate.model;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
     User create(User user);
@@ -12,13 +15,39 @@ public interface UserStorage {
 
     Optional<User> findById(Long userId);
 
+    /**
+     * Версия строки пользователя: растёт при каждом изменении, видимом в UserDto.
+     */
+    Optional<Long> findVersion(Long userId);
+
     List<User> findBySeveralIds(List<Long> usersIds);
 
     List<User> findAll();
 
+    /**
+     * Страница пользователей с ID больше afterId по возрастанию ID.
+     */
+    List<User> findPage(long afterId, int limit);
+
+    void forEach(Consumer<User> consumer);
+
+    /**
+     * Страница друзей пользователя с ID больше afterId по возрастанию ID.
+     */
+    List<User> findFriendsPage(Long userId, long afterId, int limit);
+
+    List<User> findCommonFriendsPage(Long userId, Long otherUserId, long afterId, int limit);
+
+    /**
+     * Страница пользователей, добавивших userId в друзья, с ID больше afterId по возрастанию ID.
+     */
+    List<User> findFollowersPage(Long userId, long afterId, int limit);
+
     Optional<User> findByEmail(String email);
 
     boolean isEmailAlreadyUse(String email);
 
     boolean isUserExists(Long userId);
+
+    Set<Long> findExistingIds(Collection<Long> usersIds);
 }
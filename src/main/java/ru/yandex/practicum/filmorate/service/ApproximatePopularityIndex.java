@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.util.LinkedHashMap;
+
+/**
+ * Приближённый рейтинг популярности для очень больших объёмов лайков: эскиз и список кандидатов
+ * занимают память, не зависящую от числа фильмов, а количество лайков может быть завышено
+ * не больше чем на epsilon * (общее число лайков) с вероятностью 1 - delta. Включается настройкой
+ * filmorate.popularity.mode=approximate и используется для /films/popular без фильтров.
+ * Запросы с фильтрами по-прежнему обслуживает точный FilmPopularityIndex, поэтому в этом режиме
+ * он тоже ведётся и общий расход памяти от числа фильмов зависит.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "filmorate.popularity.mode", havingValue = "approximate")
+public class ApproximatePopularityIndex {
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final HeavyHittersTopK heavyHitters;
+    private final int capacity;
+
+    public ApproximatePopularityIndex(FilmLikesDbStorage filmLikesDbStorage,
+                                      @Value("${filmorate.popularity.approximate.epsilon:0.0001}") double epsilon,
+                                      @Value("${filmorate.popularity.approximate.delta:0.001}") double delta,
+                                      @Value("${filmorate.popularity.approximate.capacity:1000}") int capacity) {
+        this.filmLikesDbStorage = filmLikesDbStorage;
+        this.heavyHitters = new HeavyHittersTopK(new CountMinSketch(epsilon, delta), capacity);
+        this.capacity = capacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        heavyHitters.clear();
+        int[] filmsCount = {0};
+        filmLikesDbStorage.forEachLikesCount((filmId, likesCount) -> {
+            heavyHitters.add(filmId, likesCount);
+            filmsCount[0]++;
+        });
+        log.info("Приближённый индекс популярности построен: {} фильмов с лайками.", filmsCount[0]);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFilmLike(FilmLikeEvent event) {
+        heavyHitters.add(event.getFilmId(), event.getLikesDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFilmDeleted(FilmDeletedEvent event) {
+        heavyHitters.remove(event.getFilmId());
+    }
+
+    /**
+     * Возвращает не больше capacity кандидатов с оценками эскиза: за пределами отслеживаемых
+     * кандидатов приближённый режим порядок не гарантирует. Оценка может быть завышена, поэтому
+     * для ответа кандидатов нужно упорядочить по точному likes_count.
+     */
+    public synchronized LinkedHashMap<Long, Long> getTopPopularFilmsIds(int count) {
+        return heavyHitters.top(Math.min(count, capacity));
+    }
+}
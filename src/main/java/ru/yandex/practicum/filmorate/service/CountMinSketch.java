@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Count-Min sketch для неотрицательных счётчиков с поддержкой уменьшения.
+ * Оценка завышает истинное значение не более чем на epsilon * (сумма всех счётчиков)
+ * с вероятностью не меньше 1 - delta.
+ */
+public class CountMinSketch {
+    private final int width;
+    private final long[] seeds;
+    private final long[][] counts;
+
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon и delta должны быть в интервале (0, 1).");
+        }
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        this.seeds = new long[depth];
+        this.counts = new long[depth][width];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = mix(0x9E3779B97F4A7C15L * (row + 1));
+        }
+    }
+
+    public void add(long key, long delta) {
+        for (int row = 0; row < seeds.length; row++) {
+            int column = column(key, row);
+            counts[row][column] = Math.max(0, counts[row][column] + delta);
+        }
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < seeds.length; row++) {
+            estimate = Math.min(estimate, counts[row][column(key, row)]);
+        }
+        return estimate;
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            java.util.Arrays.fill(row, 0);
+        }
+    }
+
+    private int column(long key, int row) {
+        return (int) Long.remainderUnsigned(mix(key ^ seeds[row]), width);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
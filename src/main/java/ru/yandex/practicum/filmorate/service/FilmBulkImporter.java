@@ -0,0 +1,200 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dto.BatchItemStatus;
+import ru.yandex.practicum.filmorate.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.dto.GenreDto;
+import ru.yandex.practicum.filmorate.dto.GenreId;
+import ru.yandex.practicum.filmorate.dto.NewFilmRequest;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaDto;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт каталога из NDJSON: одна строка — один NewFilmRequest.
+ * Строки читаются потоком и разбираются по одной, поэтому битая строка не сбивает разбор следующих.
+ * Рейтинги и жанры проверяются по справочникам в памяти, прошедшие проверку фильмы копятся порциями
+ * по IMPORT_CHUNK_SIZE: порция вставляется одним пакетом, жанры порции связываются вторым пакетом,
+ * обе вставки идут в одной транзакции. Ошибка в строке не прерывает импорт, а попадает в результат
+ * под её номером. Если порция не записалась в БД, её строки получают статус FAILED, а импорт продолжается
+ * со следующей порции. Читается не больше MAX_IMPORT_LINES строк, чтобы результат не рос вместе с телом запроса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmBulkImporter {
+    static final int IMPORT_CHUNK_SIZE = 500;
+    static final int MAX_IMPORT_LINES = 100_000;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final FilmStorage filmStorage;
+    private final FilmGenresDbStorage filmGenresDbStorage;
+    private final GenreService genreService;
+    private final RatingMpaaService ratingMpaaService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Фильм, ожидающий вставки: position — его место в списке результатов.
+     */
+    private record PendingFilm(int line, int position, Film film, Set<Long> genresIds) {
+    }
+
+    public List<FilmImportResult> importFilms(InputStream in) {
+        log.info("Импорт фильмов из NDJSON.");
+        Set<Long> knownMpaIds = ratingMpaaService.findAll().stream()
+                .map(RatingMpaaDto::getId)
+                .collect(Collectors.toSet());
+        Set<Long> knownGenresIds = genreService.findAll().stream()
+                .map(GenreDto::getId)
+                .collect(Collectors.toSet());
+        ObjectReader reader = objectMapper.readerFor(NewFilmRequest.class);
+
+        List<FilmImportResult> results = new ArrayList<>();
+        List<PendingFilm> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                lineNumber++;
+                if (lineNumber > MAX_IMPORT_LINES) {
+                    results.add(FilmImportResult.rejected(lineNumber, BatchItemStatus.INVALID, String.format(
+                            "Превышен лимит в %d строк, оставшиеся строки не импортированы.", MAX_IMPORT_LINES)));
+                    break;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                NewFilmRequest request;
+                try {
+                    request = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    results.add(FilmImportResult.rejected(lineNumber, BatchItemStatus.INVALID,
+                            "Некорректный JSON: " + e.getOriginalMessage()));
+                    continue;
+                }
+                FilmImportResult rejection = check(lineNumber, request, knownMpaIds, knownGenresIds);
+                if (rejection != null) {
+                    results.add(rejection);
+                    continue;
+                }
+                chunk.add(new PendingFilm(lineNumber, results.size(), FilmMapper.mapToFilm(request),
+                        getGenresIds(request)));
+                results.add(null);
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    insertChunk(chunk, results);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        insertChunk(chunk, results);
+
+        log.info("Импорт фильмов завершён: обработано {} записей.", results.size());
+        return results;
+    }
+
+    private FilmImportResult check(int line, NewFilmRequest request, Set<Long> knownMpaIds, Set<Long> knownGenresIds) {
+        if (request == null) {
+            return FilmImportResult.rejected(line, BatchItemStatus.INVALID, "Строка не содержит фильма.");
+        }
+        Set<ConstraintViolation<NewFilmRequest>> violations = validator.validate(request);
+        if (violations.isEmpty() == false) {
+            return FilmImportResult.rejected(line, BatchItemStatus.INVALID, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" ")));
+        }
+        if (request.getReleaseDate().isBefore(FilmService.MOVIE_BIRTHDAY)) {
+            return FilmImportResult.rejected(line, BatchItemStatus.INVALID, FilmService.RELEASE_DATE_TOO_EARLY);
+        }
+
+        Long mpaId = request.getMpa().getId();
+        if (mpaId == null) {
+            return FilmImportResult.rejected(line, BatchItemStatus.INVALID, "ID рейтинга не может быть null.");
+        }
+        if (knownMpaIds.contains(mpaId) == false) {
+            return FilmImportResult.rejected(line, BatchItemStatus.NOT_FOUND,
+                    String.format("Рейтинг с id = %d не найден.", mpaId));
+        }
+
+        if (request.getGenres() != null
+                && request.getGenres().stream().anyMatch(genre -> genre == null || genre.getId() == null)) {
+            return FilmImportResult.rejected(line, BatchItemStatus.INVALID, "ID жанра не может быть null.");
+        }
+        Set<Long> missingGenresIds = new TreeSet<>(getGenresIds(request));
+        missingGenresIds.removeAll(knownGenresIds);
+        if (missingGenresIds.isEmpty() == false) {
+            return FilmImportResult.rejected(line, BatchItemStatus.NOT_FOUND,
+                    String.format("Не найдены жанры с ID: %s", missingGenresIds));
+        }
+        return null;
+    }
+
+    private static Set<Long> getGenresIds(NewFilmRequest request) {
+        if (request.getGenres() == null) {
+            return Set.of();
+        }
+        return request.getGenres().stream()
+                .map(GenreId::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private void insertChunk(List<PendingFilm> chunk, List<FilmImportResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                filmStorage.createAll(chunk.stream()
+                        .map(PendingFilm::film)
+                        .collect(Collectors.toList()));
+
+                Map<Long, Set<Long>> genresIdsByFilm = new HashMap<>();
+                for (PendingFilm pending : chunk) {
+                    genresIdsByFilm.put(pending.film().getId(), pending.genresIds());
+                }
+                filmGenresDbStorage.insert(genresIdsByFilm);
+
+                chunk.forEach(pending -> eventPublisher.publishEvent(
+                        new FilmChangedEvent(pending.film(), pending.genresIds())));
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Не удалось импортировать порцию из {} фильмов.", chunk.size(), e);
+            for (PendingFilm pending : chunk) {
+                results.set(pending.position(), FilmImportResult.rejected(pending.line(), BatchItemStatus.FAILED,
+                        "Не удалось сохранить порцию фильмов, в которую входит строка."));
+            }
+            chunk.clear();
+            return;
+        }
+
+        for (PendingFilm pending : chunk) {
+            results.set(pending.position(), FilmImportResult.created(pending.line(), pending.film().getId()));
+        }
+        log.info("Импортирована порция из {} фильмов.", chunk.size());
+        chunk.clear();
+    }
+}
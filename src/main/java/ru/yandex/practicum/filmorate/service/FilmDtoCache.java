@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш собранных FilmDto, ограниченный по размеру и времени жизни.
+ * Запись хранит версию фильма (films.version), прочитанную до загрузки FilmDto, поэтому данные записи
+ * не старее её версии. Чтение сверяет версию записи с текущей версией из БД и перезагружает запись
+ * при расхождении: любое изменение фильма, в том числе лайк, пакетная запись лайков и пересчёт
+ * LikesCountRepairJob, увеличивает версию, и устаревшая запись не отдаётся под новым ETag.
+ * Одиночный лайк заменяет запись копией с новыми likesCount и версией из события, если запись была ровно
+ * на версию старше: горячий фильм не перезагружается из БД при каждом лайке. Лайк без состояния фильма
+ * (пакетные пути) или при пропущенных изменениях вытесняет запись, как и события изменения и удаления фильма.
+ * Метрики публикуются как cache.* с тегом cache=films.dto.
+ */
+@Component
+public class FilmDtoCache {
+    private static final String CACHE_NAME = "films.dto";
+
+    private final Cache<Long, VersionedFilmDto> cache;
+
+    private record VersionedFilmDto(long version, FilmDto filmDto) {
+    }
+
+    public FilmDtoCache(MeterRegistry meterRegistry,
+                        @Value("${filmorate.films.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${filmorate.films.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Возвращает фильм версии не ниже version из кэша или загружает его; version нужно прочитать из БД
+     * до вызова. Если загрузчик вернул null, ничего не кэшируется.
+     */
+    public FilmDto get(Long filmId, long version, Function<Long, FilmDto> loader) {
+        Function<Long, VersionedFilmDto> versionedLoader = id -> {
+            FilmDto filmDto = loader.apply(id);
+            return filmDto == null ? null : new VersionedFilmDto(version, filmDto);
+        };
+        VersionedFilmDto entry = cache.get(filmId, versionedLoader);
+        if (entry != null && entry.version() != version) {
+            cache.asMap().remove(filmId, entry);
+            entry = cache.get(filmId, versionedLoader);
+        }
+        return entry == null ? null : entry.filmDto();
+    }
+
+    /**
+     * Вытесняет все записи: для массовых изменений, после которых неизвестно, какие фильмы затронуты.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmLike(FilmLikeEvent event) {
+        if (event.hasFilmState() == false) {
+            cache.invalidate(event.getFilmId());
+            return;
+        }
+        long version = event.getFilmVersion();
+        cache.asMap().computeIfPresent(event.getFilmId(), (filmId, entry) -> {
+            if (entry.version() >= version) {
+                return entry;
+            }
+            if (entry.version() != version - 1) {
+                return null;
+            }
+            FilmDto patched = entry.filmDto().toBuilder()
+                    .likesCount(event.getLikesCount())
+                    .build();
+            return new VersionedFilmDto(version, patched);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        cache.invalidate(event.getFilm().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        cache.invalidate(event.getFilmId());
+    }
+}
@@ -0,0 +1,265 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Колоночный индекс каталога для фильтрации GET /films.
+ * Жанры и рейтинги хранятся битовыми картами по ID фильма, дата выхода и продолжительность —
+ * отсортированными массивами пар (значение, ID). Фильтр — пересечение битовых карт; диапазон по колонке
+ * либо превращается в битовую карту, либо проверяется по каждому кандидату, если кандидатов уже меньше,
+ * чем фильмов в диапазоне. Страница выбирается обходом установленных битов после курсора.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmFilterIndex {
+    private final FilmStorage filmStorage;
+    private final FilmGenresDbStorage filmGenresDbStorage;
+    private final BitSet allFilms = new BitSet();
+    private final Map<Long, BitSet> filmsByGenre = new HashMap<>();
+    private final Map<Long, BitSet> filmsByMpa = new HashMap<>();
+    private final Map<Integer, FilmColumns> columnsByFilm = new HashMap<>();
+    private final SortedColumn releaseDates = new SortedColumn();
+    private final SortedColumn durations = new SortedColumn();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record FilmColumns(long mpaId, int releaseEpochDay, int duration, Set<Long> genresIds) {
+    }
+
+    /**
+     * Отсортированный массив пар (значение, ID фильма), упакованных в long: значение в старших 32 битах.
+     */
+    private static final class SortedColumn {
+        private long[] entries = new long[0];
+        private int size;
+
+        private static long encode(int value, int filmId) {
+            return ((long) value << Integer.SIZE) | filmId;
+        }
+
+        void clear() {
+            entries = new long[0];
+            size = 0;
+        }
+
+        void addAll(long[] newEntries) {
+            Arrays.sort(newEntries);
+            entries = newEntries;
+            size = newEntries.length;
+        }
+
+        void add(int value, int filmId) {
+            long entry = encode(value, filmId);
+            int idx = Arrays.binarySearch(entries, 0, size, entry);
+            if (idx >= 0) {
+                return;
+            }
+            int insertAt = -idx - 1;
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(16, size * 2));
+            }
+            System.arraycopy(entries, insertAt, entries, insertAt + 1, size - insertAt);
+            entries[insertAt] = entry;
+            size++;
+        }
+
+        void remove(int value, int filmId) {
+            int idx = Arrays.binarySearch(entries, 0, size, encode(value, filmId));
+            if (idx < 0) {
+                return;
+            }
+            System.arraycopy(entries, idx + 1, entries, idx, size - idx - 1);
+            size--;
+        }
+
+        int lowerBound(int value) {
+            int idx = Arrays.binarySearch(entries, 0, size, encode(value, 0));
+            return idx >= 0 ? idx : -idx - 1;
+        }
+
+        int upperBound(int value) {
+            int idx = Arrays.binarySearch(entries, 0, size, encode(value, Integer.MAX_VALUE));
+            return idx >= 0 ? idx + 1 : -idx - 1;
+        }
+
+        BitSet toBitSet(int from, int to) {
+            BitSet films = new BitSet();
+            for (int idx = from; idx < to; idx++) {
+                films.set((int) entries[idx]);
+            }
+            return films;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Set<Long>> genresIds = filmGenresDbStorage.getGenresIdsOfAllFilms();
+        lock.writeLock().lock();
+        try {
+            allFilms.clear();
+            filmsByGenre.clear();
+            filmsByMpa.clear();
+            columnsByFilm.clear();
+            releaseDates.clear();
+            durations.clear();
+
+            filmStorage.forEach(film -> setBitmaps(toIndexId(film.getId()),
+                    toColumns(film, genresIds.getOrDefault(film.getId(), Set.of()))));
+
+            long[] releaseDatesEntries = new long[columnsByFilm.size()];
+            long[] durationsEntries = new long[columnsByFilm.size()];
+            int idx = 0;
+            for (Map.Entry<Integer, FilmColumns> entry : columnsByFilm.entrySet()) {
+                releaseDatesEntries[idx] = SortedColumn.encode(entry.getValue().releaseEpochDay(), entry.getKey());
+                durationsEntries[idx] = SortedColumn.encode(entry.getValue().duration(), entry.getKey());
+                idx++;
+            }
+            releaseDates.addAll(releaseDatesEntries);
+            durations.addAll(durationsEntries);
+            log.info("Индекс фильтрации каталога построен: {} фильмов.", columnsByFilm.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        Film film = event.getFilm();
+        int filmId = toIndexId(film.getId());
+        lock.writeLock().lock();
+        try {
+            FilmColumns previous = columnsByFilm.get(filmId);
+            Set<Long> genresIds = event.hasGenresIds()
+                    ? event.getGenresIds()
+                    : previous != null ? previous.genresIds() : Set.of();
+            remove(filmId);
+            FilmColumns columns = toColumns(film, genresIds);
+            setBitmaps(filmId, columns);
+            releaseDates.add(columns.releaseEpochDay(), filmId);
+            durations.add(columns.duration(), filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(toIndexId(event.getFilmId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ID фильмов, подходящих под все условия фильтра, по возрастанию: не больше limit после afterId.
+     * Фильм должен иметь все перечисленные жанры.
+     */
+    public List<Long> findPage(FilmFilter filter, long afterId, int limit) {
+        if (afterId >= Integer.MAX_VALUE) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(filter);
+            List<Long> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+            for (int filmId = matches.nextSetBit((int) afterId + 1);
+                 filmId >= 0 && page.size() < limit;
+                 filmId = matches.nextSetBit(filmId + 1)) {
+                page.add((long) filmId);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(FilmFilter filter) {
+        BitSet matches = (BitSet) allFilms.clone();
+        if (filter.getGenreIds() != null) {
+            for (Long genreId : filter.getGenreIds()) {
+                matches.and(filmsByGenre.getOrDefault(genreId, new BitSet()));
+            }
+        }
+        if (filter.getMpaId() != null) {
+            matches.and(filmsByMpa.getOrDefault(filter.getMpaId(), new BitSet()));
+        }
+        if (filter.getReleasedFrom() != null || filter.getReleasedTo() != null) {
+            int from = filter.getReleasedFrom() != null
+                    ? (int) filter.getReleasedFrom().toEpochDay()
+                    : Integer.MIN_VALUE;
+            int to = filter.getReleasedTo() != null
+                    ? (int) filter.getReleasedTo().toEpochDay()
+                    : Integer.MAX_VALUE;
+            applyRange(matches, releaseDates, from, to, FilmColumns::releaseEpochDay);
+        }
+        if (filter.getMinDuration() != null) {
+            applyRange(matches, durations, filter.getMinDuration(), Integer.MAX_VALUE, FilmColumns::duration);
+        }
+        return matches;
+    }
+
+    private void applyRange(BitSet matches, SortedColumn column, int from, int to,
+                            ToIntFunction<FilmColumns> value) {
+        if (from > to) {
+            matches.clear();
+            return;
+        }
+        int lower = column.lowerBound(from);
+        int upper = column.upperBound(to);
+        if (matches.cardinality() < upper - lower) {
+            for (int filmId = matches.nextSetBit(0); filmId >= 0; filmId = matches.nextSetBit(filmId + 1)) {
+                int filmValue = value.applyAsInt(columnsByFilm.get(filmId));
+                if (filmValue < from || filmValue > to) {
+                    matches.clear(filmId);
+                }
+            }
+        } else {
+            matches.and(column.toBitSet(lower, upper));
+        }
+    }
+
+    private void setBitmaps(int filmId, FilmColumns columns) {
+        allFilms.set(filmId);
+        filmsByMpa.computeIfAbsent(columns.mpaId(), key -> new BitSet()).set(filmId);
+        columns.genresIds().forEach(genreId -> filmsByGenre.computeIfAbsent(genreId, key -> new BitSet()).set(filmId));
+        columnsByFilm.put(filmId, columns);
+    }
+
+    private void remove(int filmId) {
+        FilmColumns columns = columnsByFilm.remove(filmId);
+        if (columns == null) {
+            return;
+        }
+        allFilms.clear(filmId);
+        filmsByMpa.get(columns.mpaId()).clear(filmId);
+        columns.genresIds().forEach(genreId -> filmsByGenre.get(genreId).clear(filmId));
+        releaseDates.remove(columns.releaseEpochDay(), filmId);
+        durations.remove(columns.duration(), filmId);
+    }
+
+    private static FilmColumns toColumns(Film film, Set<Long> genresIds) {
+        return new FilmColumns(film.getMpa().getId(), (int) film.getReleaseDate().toEpochDay(),
+                film.getDuration(), Set.copyOf(genresIds));
+    }
+
+    private static int toIndexId(Long filmId) {
+        return Math.toIntExact(filmId);
+    }
+}
@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Рейтинг фильмов по количеству лайков, который держится в памяти и обновляется
+ * после каждого лайка/дизлайка. Топ-N отдаётся за O(N) без обращения к film_likes.
+ * Кроме общего рейтинга ведутся отдельные рейтинги по жанру, рейтингу MPA и году выхода.
+ * Перестроение читает снимок из БД без блокировки индекса, поэтому события продолжают применяться.
+ * Фильмы, которых события коснулись во время чтения, после подмены снимка перечитываются из БД:
+ * иначе лайк, попавший и в снимок, и в событие, учитывался бы дважды. Остаётся лишь окно между коммитом
+ * лайка и обработкой его события, расхождение из которого исправит {@link #verifyConsistency()}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmPopularityIndex {
+    private static final int CONSISTENCY_CHECK_SIZE = 100;
+    private static final Comparator<RankedFilm> RANKING_ORDER = Comparator
+            .comparingInt(RankedFilm::likes).reversed()
+            .thenComparingLong(RankedFilm::filmId);
+
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final FilmGenresDbStorage filmGenresDbStorage;
+    private final FilmStorage filmStorage;
+    private final Map<Long, Integer> likesByFilm = new HashMap<>();
+    private final Map<Long, FilmFacets> facetsByFilm = new HashMap<>();
+    private final NavigableSet<RankedFilm> ranking = new TreeSet<>(RANKING_ORDER);
+    private final Map<Long, NavigableSet<RankedFilm>> rankingByGenre = new HashMap<>();
+    private final Map<Long, NavigableSet<RankedFilm>> rankingByMpa = new HashMap<>();
+    private final Map<Integer, NavigableSet<RankedFilm>> rankingByYear = new HashMap<>();
+    private Set<Long> touchedDuringRebuild;
+
+    private record RankedFilm(long filmId, int likes) {
+    }
+
+    private record FilmFacets(Long mpaId, Integer year, Set<Long> genresIds) {
+    }
+
+    private record FilmSnapshot(Long filmId, FilmFacets facets, int likes) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            touchedDuringRebuild = new HashSet<>();
+        }
+        List<FilmSnapshot> snapshot;
+        try {
+            Map<Long, Set<Long>> genresIds = filmGenresDbStorage.getGenresIdsOfAllFilms();
+            snapshot = new ArrayList<>();
+            filmStorage.forEach(film -> snapshot.add(toSnapshot(film, genresIds.getOrDefault(film.getId(), Set.of()))));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touchedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            try {
+                likesByFilm.clear();
+                facetsByFilm.clear();
+                ranking.clear();
+                rankingByGenre.clear();
+                rankingByMpa.clear();
+                rankingByYear.clear();
+                snapshot.forEach(this::apply);
+                reloadFilms(touchedDuringRebuild);
+            } finally {
+                touchedDuringRebuild = null;
+            }
+            log.info("Индекс популярности построен: {} фильмов с лайками.", likesByFilm.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmLike(FilmLikeEvent event) {
+        changeLikes(event.getFilmId(), event.getLikesDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFilmChanged(FilmChangedEvent event) {
+        Film film = event.getFilm();
+        markTouched(film.getId());
+        Set<Long> genresIds = event.hasGenresIds()
+                ? event.getGenresIds()
+                : Optional.ofNullable(facetsByFilm.get(film.getId())).map(FilmFacets::genresIds).orElse(Set.of());
+        setFacets(film.getId(), toFacets(film, genresIds));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onFilmDeleted(FilmDeletedEvent event) {
+        markTouched(event.getFilmId());
+        setLikes(event.getFilmId(), 0);
+        setFacets(event.getFilmId(), null);
+    }
+
+    public synchronized void changeLikes(Long filmId, int delta) {
+        markTouched(filmId);
+        setLikes(filmId, likesByFilm.getOrDefault(filmId, 0) + delta);
+    }
+
+    public LinkedHashMap<Long, Integer> getTopPopularFilmsIds(int count) {
+        return getTopPopularFilmsIds(count, null, null, null);
+    }
+
+    public synchronized LinkedHashMap<Long, Integer> getTopPopularFilmsIds(int count, Long genreId, Long mpaId,
+                                                                           Integer year) {
+        List<NavigableSet<RankedFilm>> rankings = new ArrayList<>();
+        if (genreId != null) {
+            rankings.add(rankingByGenre.getOrDefault(genreId, Collections.emptyNavigableSet()));
+        }
+        if (mpaId != null) {
+            rankings.add(rankingByMpa.getOrDefault(mpaId, Collections.emptyNavigableSet()));
+        }
+        if (year != null) {
+            rankings.add(rankingByYear.getOrDefault(year, Collections.emptyNavigableSet()));
+        }
+        NavigableSet<RankedFilm> candidates = rankings.stream()
+                .min(Comparator.comparingInt(Set::size))
+                .orElse(ranking);
+
+        LinkedHashMap<Long, Integer> result = new LinkedHashMap<>();
+        Iterator<RankedFilm> iterator = candidates.iterator();
+        while (result.size() < count && iterator.hasNext()) {
+            RankedFilm film = iterator.next();
+            if (matches(facetsByFilm.get(film.filmId()), genreId, mpaId, year)) {
+                result.put(film.filmId(), film.likes());
+            }
+        }
+        return result;
+    }
+
+    public synchronized int getLikesCount(Long filmId) {
+        return likesByFilm.getOrDefault(filmId, 0);
+    }
+
+    /**
+     * Сверяет топ-N индекса с результатом SQL-агрегации по film_likes.
+     * Порядок фильмов с одинаковым числом лайков в SQL не определён, поэтому сравниваются
+     * последовательность количеств лайков и количество лайков у каждого фильма из выборки.
+     */
+    public boolean isConsistentWithStorage(int count) {
+        LinkedHashMap<Long, Integer> expected = filmLikesDbStorage.getTopPopularFilmsIds(count);
+        synchronized (this) {
+            List<Integer> expectedCounts = List.copyOf(expected.values());
+            List<Integer> actualCounts = List.copyOf(getTopPopularFilmsIds(count).values());
+            if (expectedCounts.equals(actualCounts) == false) {
+                log.warn("Индекс популярности расходится с БД: ожидалось {}, в индексе {}.",
+                        expectedCounts, actualCounts);
+                return false;
+            }
+
+            for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+                int actual = likesByFilm.getOrDefault(entry.getKey(), 0);
+                if (actual != entry.getValue()) {
+                    log.warn("Индекс популярности расходится с БД: фильм ID {}, ожидалось {}, в индексе {}.",
+                            entry.getKey(), entry.getValue(), actual);
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.popularity.consistency-check-interval-ms:600000}",
+            initialDelayString = "${filmorate.popularity.consistency-check-interval-ms:600000}")
+    public void verifyConsistency() {
+        if (isConsistentWithStorage(CONSISTENCY_CHECK_SIZE) == false) {
+            rebuild();
+        }
+    }
+
+    private void markTouched(Long filmId) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(filmId);
+        }
+    }
+
+    private void reloadFilms(Set<Long> filmsIds) {
+        if (filmsIds.isEmpty()) {
+            return;
+        }
+        filmsIds.forEach(filmId -> {
+            setLikes(filmId, 0);
+            setFacets(filmId, null);
+        });
+        Map<Long, List<Genre>> genres = filmGenresDbStorage.getGenresByFilmsIds(filmsIds);
+        filmStorage.findBySeveralIds(List.copyOf(filmsIds)).forEach(film -> apply(toSnapshot(film,
+                genres.getOrDefault(film.getId(), List.of()).stream().map(Genre::getId).collect(Collectors.toSet()))));
+        log.debug("Во время перестроения индекса популярности изменились {} фильмов, они перечитаны из БД.",
+                filmsIds.size());
+    }
+
+    private void apply(FilmSnapshot film) {
+        setFacets(film.filmId(), film.facets());
+        setLikes(film.filmId(), film.likes());
+    }
+
+    private static FilmSnapshot toSnapshot(Film film, Set<Long> genresIds) {
+        return new FilmSnapshot(film.getId(), toFacets(film, genresIds), film.getLikesCount());
+    }
+
+    private static FilmFacets toFacets(Film film, Set<Long> genresIds) {
+        return new FilmFacets(
+                film.getMpa() != null ? film.getMpa().getId() : null,
+                film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null,
+                Set.copyOf(genresIds));
+    }
+
+    private static boolean matches(FilmFacets facets, Long genreId, Long mpaId, Integer year) {
+        if (genreId == null && mpaId == null && year == null) {
+            return true;
+        }
+        return facets != null
+                && (genreId == null || facets.genresIds().contains(genreId))
+                && (mpaId == null || mpaId.equals(facets.mpaId()))
+                && (year == null || year.equals(facets.year()));
+    }
+
+    private void setLikes(Long filmId, int likes) {
+        Integer previous = likesByFilm.remove(filmId);
+        FilmFacets facets = facetsByFilm.get(filmId);
+        if (previous != null) {
+            removeFromRankings(new RankedFilm(filmId, previous), facets);
+        }
+
+        if (likes > 0) {
+            likesByFilm.put(filmId, likes);
+            addToRankings(new RankedFilm(filmId, likes), facets);
+        }
+    }
+
+    private void setFacets(Long filmId, FilmFacets facets) {
+        FilmFacets previous = facets != null ? facetsByFilm.put(filmId, facets) : facetsByFilm.remove(filmId);
+        Integer likes = likesByFilm.get(filmId);
+        if (likes != null) {
+            RankedFilm rankedFilm = new RankedFilm(filmId, likes);
+            removeFromRankings(rankedFilm, previous);
+            addToRankings(rankedFilm, facets);
+        }
+    }
+
+    private void addToRankings(RankedFilm rankedFilm, FilmFacets facets) {
+        ranking.add(rankedFilm);
+        if (facets == null) {
+            return;
+        }
+        facets.genresIds().forEach(genreId -> facetRanking(rankingByGenre, genreId).add(rankedFilm));
+        if (facets.mpaId() != null) {
+            facetRanking(rankingByMpa, facets.mpaId()).add(rankedFilm);
+        }
+        if (facets.year() != null) {
+            facetRanking(rankingByYear, facets.year()).add(rankedFilm);
+        }
+    }
+
+    private void removeFromRankings(RankedFilm rankedFilm, FilmFacets facets) {
+        ranking.remove(rankedFilm);
+        if (facets == null) {
+            return;
+        }
+        facets.genresIds().forEach(genreId -> removeFromFacetRanking(rankingByGenre, genreId, rankedFilm));
+        removeFromFacetRanking(rankingByMpa, facets.mpaId(), rankedFilm);
+        removeFromFacetRanking(rankingByYear, facets.year(), rankedFilm);
+    }
+
+    private static <K> NavigableSet<RankedFilm> facetRanking(Map<K, NavigableSet<RankedFilm>> rankings, K key) {
+        return rankings.computeIfAbsent(key, k -> new TreeSet<>(RANKING_ORDER));
+    }
+
+    private static <K> void removeFromFacetRanking(Map<K, NavigableSet<RankedFilm>> rankings, K key,
+                                                   RankedFilm rankedFilm) {
+        NavigableSet<RankedFilm> facetRanking = key != null ? rankings.get(key) : null;
+        if (facetRanking != null) {
+            facetRanking.remove(rankedFilm);
+            if (facetRanking.isEmpty()) {
+                rankings.remove(key);
+            }
+        }
+    }
+}
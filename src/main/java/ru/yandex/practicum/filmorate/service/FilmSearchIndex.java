@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по названиям и описаниям фильмов с ранжированием BM25.
+ * Терм названия весит как NAME_WEIGHT термов описания. Каждый терм запроса ищется
+ * и как точная основа, и как префикс (не больше MAX_PREFIX_TERMS продолжений): совпадение по префиксу
+ * даёт PREFIX_WEIGHT от полного вклада.
+ * Строится при старте приложения и обновляется по событиям изменения и удаления фильмов.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final FilmStorage filmStorage;
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> termsByFilm = new HashMap<>();
+    private final Map<Long, Integer> lengthByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByFilm.clear();
+            lengthByFilm.clear();
+            totalLength = 0;
+            filmStorage.forEach(this::index);
+            log.info("Поисковый индекс построен: {} фильмов, {} термов.", termsByFilm.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getFilm().getId());
+            index(event.getFilm());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getFilmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ID фильмов по убыванию релевантности; при равной релевантности — по возрастанию ID.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = TextTokenizer.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (termsByFilm.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / termsByFilm.size();
+            for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+                addTermScores(queryTerm, averageLength, scores);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void addTermScores(String queryTerm, double averageLength, Map<Long, Double> scores) {
+        Map<Long, Double> termScores = new HashMap<>();
+        int expandedTerms = 0;
+        for (Map.Entry<String, Map<Long, Integer>> entry : postings.tailMap(queryTerm, true).entrySet()) {
+            String term = entry.getKey();
+            if (term.startsWith(queryTerm) == false || expandedTerms++ == MAX_PREFIX_TERMS) {
+                break;
+            }
+            double weight = term.equals(queryTerm) ? 1 : PREFIX_WEIGHT;
+            Map<Long, Integer> frequencies = entry.getValue();
+            double idf = Math.log(1 + (termsByFilm.size() - frequencies.size() + 0.5) / (frequencies.size() + 0.5));
+            frequencies.forEach((filmId, frequency) -> {
+                int length = lengthByFilm.get(filmId);
+                double score = weight * idf * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * length / averageLength));
+                termScores.merge(filmId, score, Math::max);
+            });
+        }
+        termScores.forEach((filmId, score) -> scores.merge(filmId, score, Double::sum));
+    }
+
+    private void index(Film film) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        TextTokenizer.tokenize(film.getName()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        TextTokenizer.tokenize(film.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        if (frequencies.isEmpty()) {
+            return;
+        }
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(film.getId(), frequency));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        termsByFilm.put(film.getId(), frequencies);
+        lengthByFilm.put(film.getId(), length);
+        totalLength += length;
+    }
+
+    private void remove(Long filmId) {
+        Map<String, Integer> frequencies = termsByFilm.remove(filmId);
+        if (frequencies == null) {
+            return;
+        }
+        totalLength -= lengthByFilm.remove(filmId);
+        frequencies.keySet().forEach(term -> {
+            Map<Long, Integer> films = postings.get(term);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+    }
+}
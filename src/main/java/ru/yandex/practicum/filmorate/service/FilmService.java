@@ -2,20 +2,32 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
 import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
 import ru.yandex.practicum.filmorate.dto.*;
 import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.model.AddLikeResult;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeChange;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
 import ru.yandex.practicum.filmorate.model.ValidationError;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,20 +35,34 @@ import java.util.stream.Collectors;
 @Slf4j
 @RequiredArgsConstructor
 public class FilmService {
-    private static final LocalDate MOVIE_BIRTHDAY = LocalDate.of(1895, 12, 28);
+    private static final int MAX_FILMS_PAGE_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    static final LocalDate MOVIE_BIRTHDAY = LocalDate.of(1895, 12, 28);
+    static final String RELEASE_DATE_TOO_EARLY = "Дата релиза должна быть не раньше 28 декабря 1895 года.";
     private static final String FILM_NOT_FOUND = "Фильм с id = %d не найден.";
+    private static final String USER_NOT_FOUND = "Пользователь с id = %d не найден.";
     private final FilmStorage filmStorage;
     private final FilmGenresDbStorage filmGenresDbStorage;
     private final FilmLikesDbStorage filmLikesDbStorage;
     private final UserService userService;
     private final GenreService genreService;
     private final RatingMpaaService ratingMpaaService;
+    private final FilmPopularityIndex filmPopularityIndex;
+    private final FilmTrendingIndex filmTrendingIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NdjsonWriter ndjsonWriter;
+    private final FilmDtoCache filmDtoCache;
+    private final FilmSearchIndex filmSearchIndex;
+    private final FilmTitleTrie filmTitleTrie;
+    private final FilmFilterIndex filmFilterIndex;
+    private final ObjectProvider<LikesWriteBehindBuffer> likesWriteBehindBuffer;
+    private final ObjectProvider<ApproximatePopularityIndex> approximatePopularityIndex;
 
     private void checkDate(LocalDate date) {
         if (date.isBefore(MOVIE_BIRTHDAY)) {
             throw new ValidationException(ValidationError.builder()
                     .field("releaseDate")
-                    .message("Дата релиза должна быть не раньше 28 декабря 1895 года.")
+                    .message(RELEASE_DATE_TOO_EARLY)
                     .rejectedValue(date)
                     .build());
         }
@@ -65,8 +91,9 @@ public class FilmService {
 //        }
 
         Set<GenreId> genres = newFilmRequest.getGenres();
+        Set<Long> genresIds = Set.of();
         if (genres != null && genres.isEmpty() == false) {
-            Set<Long> genresIds = GenreMapper.mapGenreIdToIds(genres);
+            genresIds = GenreMapper.mapGenreIdToIds(genres);
             List<GenreDto> genresDto = genreService.getGenresDto(genresIds);
             log.info("Связывание нового фильма {} с жанрами {}", filmId, genresIds);
             filmGenresDbStorage.insert(filmId, genresIds);
@@ -74,7 +101,7 @@ public class FilmService {
         }
 
         filmDto.setMpa(ratingMpaaDto);
-        filmDto.setLikesCount(getLikesCountOfFilm(filmId));
+        eventPublisher.publishEvent(new FilmChangedEvent(newFilm, genresIds));
 
         return filmDto;
     }
@@ -100,9 +127,10 @@ public class FilmService {
 
         FilmDto filmDto = FilmMapper.mapToDto(updatingFilm);
 
+        Set<Long> genresIds = null;
         if (updateFilmRequest.hasGenres()) {
             Set<GenreId> genres = updateFilmRequest.getGenres();
-            Set<Long> genresIds = GenreMapper.mapGenreIdToIds(genres);
+            genresIds = GenreMapper.mapGenreIdToIds(genres);
             List<GenreDto> genresDto = genreService.getGenresDto(genresIds);
             log.info("Обновление жанров у фильма {}", filmId);
             filmGenresDbStorage.deleteAllGenresFromFilm(filmId);
@@ -115,33 +143,40 @@ public class FilmService {
         }
 
         filmDto.setMpa(ratingMpaaDto);
-        filmDto.setLikesCount(getLikesCountOfFilm(filmId));
+        eventPublisher.publishEvent(new FilmChangedEvent(updatingFilm, genresIds));
 
         return filmDto;
     }
 
-    @Transactional
-    public FilmDto findById(Long filmId) {
+    /**
+     * Фильм не старее версии version, полученной из getFilmVersion: запись кэша другой версии перезагружается.
+     */
+    public FilmDto findById(Long filmId, long version) {
         log.info("Поиск фильма ID {}.", filmId);
-        Film film = getFilmOrThrow(filmId);
-        FilmDto filmDto = FilmMapper.mapToDto(film);
-
-        GenreMapper.toDtoSet(
-                filmGenresDbStorage.getGenresOfFilm(filmId))
-                .forEach(filmDto.getGenres()::add);
-
-        filmDto.setMpa(
-                ratingMpaaService.getRatingMpaaDtoById(film.getMpa().getId()));
-
-        filmDto.setLikesCount(getLikesCountOfFilm(filmId));
-
+        FilmDto filmDto = filmDtoCache.get(filmId, version, id -> filmStorage.findDtoById(id).orElse(null));
+        if (filmDto == null) {
+            throw new NotFoundException(String.format(FILM_NOT_FOUND, filmId));
+        }
         return filmDto;
     }
 
+    /**
+     * Версия фильма для ETag: один запрос по первичному ключу, без сборки FilmDto.
+     */
+    public long getFilmVersion(Long filmId) {
+        return filmStorage.findVersion(filmId)
+                .orElseThrow(() -> new NotFoundException(String.format(FILM_NOT_FOUND, filmId)));
+    }
+
+    /**
+     * Страница фильмов по курсору: жанры подгружаются только для фильмов страницы.
+     * Без limit отдаётся не больше MAX_FILMS_PAGE_SIZE записей, чтобы ответ не рос вместе с таблицей.
+     */
     @Transactional
-    public List<FilmDto> findAll() {
-        log.info("Получение списка всех фильмов.");
-        List<Film> films = filmStorage.findAll();
+    public List<FilmDto> findAll(Long afterId, Integer limit) {
+        log.info("Получение страницы фильмов после ID {}, размер {}.", afterId, limit);
+        int pageSize = getPageSize(limit);
+        List<Film> films = filmStorage.findPage(afterId != null ? afterId : 0, pageSize);
         if (films.isEmpty()) {
             return List.of();
         }
@@ -150,23 +185,78 @@ public class FilmService {
                 .map(Film::getId)
                 .collect(Collectors.toSet());
 
-        Map<Long, RatingMpaaDto> mpaDto = ratingMpaaService.findAll().stream()
-                .collect(Collectors.toMap(RatingMpaaDto::getId, ratingMpaaDto -> ratingMpaaDto));
+        Map<Long, RatingMpaaDto> mpaDto = getRatingsMpaaDto();
         Map<Long, List<Genre>> genres = filmGenresDbStorage.getGenresByFilmsIds(filmsIds);
-        Map<Long, Integer> likesCount = getLikesCountByFilmsIds(filmsIds);
 
         return films.stream()
-                .map(FilmMapper::mapToDto)
-                .map(filmDto -> {
-                    long mpaId = filmDto.getMpa().getId();
-                    filmDto.setMpa(mpaDto.get(mpaId));
-                    GenreMapper.toDtoSet(
-                            genres.getOrDefault(filmDto.getId(), List.of()))
-                            .forEach(filmDto.getGenres()::add);
-                    filmDto.setLikesCount(
-                            likesCount.getOrDefault(filmDto.getId(), 0));
-                    return filmDto;
-                }).collect(Collectors.toList());
+                .map(film -> toFilmDto(film, mpaDto, genres))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Страница фильмов, подходящих под фильтр: ID страницы выбираются в FilmFilterIndex,
+     * из БД загружаются только они. Пустой фильтр равносилен обычной странице каталога.
+     */
+    public List<FilmDto> findAll(FilmFilter filter, Long afterId, Integer limit) {
+        if (filter.isEmpty()) {
+            return findAll(afterId, limit);
+        }
+        log.info("Получение страницы фильмов по фильтру {} после ID {}, размер {}.", filter, afterId, limit);
+        return getFilmsDtoInOrder(filmFilterIndex.findPage(filter, afterId != null ? afterId : 0,
+                getPageSize(limit)));
+    }
+
+    /**
+     * Фильмы по списку ID в порядке запроса: фильмы и жанры читаются по одному запросу на всю пачку,
+     * рейтинги берутся из кэша справочника. Повторы ID отбрасываются, ненайденные ID возвращаются отдельно.
+     */
+    @Transactional(readOnly = true)
+    public ByIdsResponse<FilmDto> findByIds(List<Long> filmsIds) {
+        log.info("Получение фильмов по списку ID: {}.", filmsIds);
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(filmsIds));
+        List<FilmDto> films = getFilmsDtoInOrder(distinctIds);
+        Set<Long> foundIds = films.stream()
+                .map(FilmDto::getId)
+                .collect(Collectors.toSet());
+        List<Long> missingIds = distinctIds.stream()
+                .filter(filmId -> foundIds.contains(filmId) == false)
+                .toList();
+        return new ByIdsResponse<>(films, missingIds);
+    }
+
+    private static int getPageSize(Integer limit) {
+        return limit != null ? Math.min(limit, MAX_FILMS_PAGE_SIZE) : MAX_FILMS_PAGE_SIZE;
+    }
+
+    /**
+     * Выгрузка всего каталога в NDJSON. Фильмы читаются курсором, жанры подгружаются
+     * порциями по EXPORT_CHUNK_SIZE, поэтому в памяти одновременно находится не больше одной порции.
+     */
+    public void exportFilms(OutputStream out) {
+        log.info("Выгрузка каталога фильмов.");
+        Map<Long, RatingMpaaDto> mpaDto = getRatingsMpaaDto();
+        List<Film> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        filmStorage.forEach(film -> {
+            chunk.add(film);
+            if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                writeFilmsChunk(out, chunk, mpaDto);
+                chunk.clear();
+            }
+        });
+        writeFilmsChunk(out, chunk, mpaDto);
+    }
+
+    private void writeFilmsChunk(OutputStream out, List<Film> chunk, Map<Long, RatingMpaaDto> mpaDto) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<Long> filmsIds = chunk.stream()
+                .map(Film::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Genre>> genres = filmGenresDbStorage.getGenresByFilmsIds(filmsIds);
+        ndjsonWriter.writeLines(out, chunk.stream()
+                .map(film -> toFilmDto(film, mpaDto, genres))
+                .toList());
     }
 
     public void checkFilmExists(Long filmId) {
@@ -180,6 +270,7 @@ public class FilmService {
         if (filmStorage.delete(filmId) == false) {
             throw new NotFoundException(String.format(FILM_NOT_FOUND, filmId));
         }
+        eventPublisher.publishEvent(new FilmDeletedEvent(filmId));
     }
 
     private Film getFilmOrThrow(Long id) {
@@ -187,66 +278,218 @@ public class FilmService {
                 .orElseThrow(() -> new NotFoundException(String.format(FILM_NOT_FOUND, id)));
     }
 
-    @Transactional
+    /**
+     * Без внешней транзакции: запись лайка транзакционна в хранилище, а в режиме отложенной записи
+     * ожидание места в буфере не должно держать соединение из пула. Повторный лайк отклоняется
+     * с учётом ещё не записанных операций буфера.
+     */
     public void likeFilm(Long filmId, Long userId) {
         log.info("Добавление лайка: фильм ID {}, пользователь ID {}.", filmId, userId);
 
-        checkFilmExists(filmId);
-        userService.checkUserExists(userId);
+        LikesWriteBehindBuffer buffer = likesWriteBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            checkFilmExists(filmId);
+            userService.checkUserExists(userId);
+            boolean liked = filmLikesDbStorage.hasUserLikedFilm(filmId, userId);
+            if (buffer.enqueueIfChanged(filmId, userId, true, liked) == false) {
+                throw alreadyLiked(filmId, userId);
+            }
+            return;
+        }
 
-        if (filmLikesDbStorage.addLikeIfNotExists(filmId, userId) == false) {
-            throw new ValidationException(ValidationError.builder()
-                    .field("likes")
-                    .message("У фильма уже есть лайк от пользователя.")
-                    .rejectedValue(String.format("Фильм ID %d, пользователь ID %d.", filmId, userId))
-                    .build());
+        AddLikeResult result = filmLikesDbStorage.addLike(filmId, userId, LocalDateTime.now());
+        switch (result.getStatus()) {
+            case FILM_NOT_FOUND -> throw new NotFoundException(String.format(FILM_NOT_FOUND, filmId));
+            case USER_NOT_FOUND -> throw new NotFoundException(String.format(USER_NOT_FOUND, userId));
+            case ALREADY_LIKED -> throw alreadyLiked(filmId, userId);
+            case ADDED -> eventPublisher.publishEvent(new FilmLikeEvent(filmId, userId, true, result.getChange()));
         }
     }
 
-    @Transactional
+    private static ValidationException alreadyLiked(Long filmId, Long userId) {
+        return new ValidationException(ValidationError.builder()
+                .field("likes")
+                .message("У фильма уже есть лайк от пользователя.")
+                .rejectedValue(String.format("Фильм ID %d, пользователь ID %d.", filmId, userId))
+                .build());
+    }
+
+    private static NotFoundException likeNotFound(Long filmId, Long userId) {
+        return new NotFoundException(String.format("У фильма ID %d нет лайка от пользователя ID %d.", filmId, userId));
+    }
+
+    /**
+     * Без внешней транзакции по тем же причинам, что и likeFilm.
+     */
     public void unlikeFilm(Long filmId, Long userId) {
         log.info("Удаление лайка: фильм ID {}, пользователь ID {}.", filmId, userId);
 
-        checkFilmExists(filmId);
-        userService.checkUserExists(userId);
+        LikesWriteBehindBuffer buffer = likesWriteBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            checkFilmExists(filmId);
+            userService.checkUserExists(userId);
+            boolean liked = filmLikesDbStorage.hasUserLikedFilm(filmId, userId);
+            if (buffer.enqueueIfChanged(filmId, userId, false, liked) == false) {
+                throw likeNotFound(filmId, userId);
+            }
+            return;
+        }
 
-        if (filmLikesDbStorage.deleteLikeFromFilmIfExists(filmId, userId) == false) {
-            throw new NotFoundException(String.format("У фильма ID %d нет лайка от пользователя ID %d.", filmId, userId));
+        Optional<LikeChange> change = filmLikesDbStorage.deleteLike(filmId, userId);
+        if (change.isEmpty()) {
+            checkFilmExists(filmId);
+            userService.checkUserExists(userId);
+            throw likeNotFound(filmId, userId);
         }
+
+        eventPublisher.publishEvent(new FilmLikeEvent(filmId, userId, false, change.get()));
     }
 
-    @Transactional
-    public List<FilmDto> getTopPopularFilms(Integer count) {
-        log.info("Получение списка из {} самых популярных фильмов", count);
-        LinkedHashMap<Long, Integer> filmsLikes = filmLikesDbStorage.getTopPopularFilmsIds(count);
-        List<Long> filmsIds = List.copyOf(filmsLikes.keySet());
-        List<Film> films = filmStorage.findBySeveralIds(filmsIds);
-        Map<Long, Film> filmMap = films.stream().collect(Collectors.toMap(Film::getId, film -> film));
+    /**
+     * Применяет пачку лайков/дизлайков: существование фильмов и пользователей проверяется
+     * двумя запросами на всю пачку, изменения пишутся через batchUpdate. Ошибка в отдельном
+     * элементе не прерывает пачку, а попадает в результат под его индексом. Внешней транзакции нет:
+     * лайки и снятия пишутся каждый своей транзакцией хранилища, а постановка в буфер отложенной записи
+     * не держит соединение, пока ждёт места.
+     */
+    public List<BatchItemResult> applyLikesBatch(List<LikeBatchItem> items) {
+        log.info("Пакетное изменение лайков: {} операций.", items.size());
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+
+        Set<Long> filmsIds = new HashSet<>();
+        Set<Long> usersIds = new HashSet<>();
+        for (LikeBatchItem item : items) {
+            if (isValidLikeBatchItem(item)) {
+                filmsIds.add(item.getFilmId());
+                usersIds.add(item.getUserId());
+            }
+        }
+        Set<Long> existingFilmsIds = filmStorage.findExistingIds(filmsIds);
+        Set<Long> existingUsersIds = userService.findExistingUsersIds(usersIds);
+
+        Map<FilmLike, Integer> likes = new LinkedHashMap<>();
+        Map<FilmLike, Integer> unlikes = new LinkedHashMap<>();
+        for (int idx = 0; idx < items.size(); idx++) {
+            LikeBatchItem item = items.get(idx);
+            if (isValidLikeBatchItem(item) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.INVALID,
+                        "Нужно указать положительные filmId, userId и op (LIKE или UNLIKE).");
+            } else if (existingFilmsIds.contains(item.getFilmId()) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.NOT_FOUND,
+                        String.format(FILM_NOT_FOUND, item.getFilmId()));
+            } else if (existingUsersIds.contains(item.getUserId()) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.NOT_FOUND,
+                        String.format(USER_NOT_FOUND, item.getUserId()));
+            } else {
+                FilmLike like = new FilmLike(item.getFilmId(), item.getUserId());
+                if (likes.containsKey(like) || unlikes.containsKey(like)) {
+                    results[idx] = new BatchItemResult(idx, BatchItemStatus.DUPLICATE,
+                            "Пара фильм/пользователь уже встречалась в пачке.");
+                } else {
+                    (item.getOp() == LikeOperation.LIKE ? likes : unlikes).put(like, idx);
+                    results[idx] = BatchItemResult.of(idx, BatchItemStatus.UNCHANGED);
+                }
+            }
+        }
+
+        LikesWriteBehindBuffer buffer = likesWriteBehindBuffer.getIfAvailable();
+        if (buffer != null) {
+            likes.forEach((like, idx) -> {
+                buffer.enqueue(like.getFilmId(), like.getUserId(), true);
+                results[idx] = BatchItemResult.of(idx, BatchItemStatus.QUEUED);
+            });
+            unlikes.forEach((like, idx) -> {
+                buffer.enqueue(like.getFilmId(), like.getUserId(), false);
+                results[idx] = BatchItemResult.of(idx, BatchItemStatus.QUEUED);
+            });
+            return Arrays.asList(results);
+        }
+
+        for (FilmLike like : filmLikesDbStorage.addLikesIfNotExist(List.copyOf(likes.keySet()))) {
+            int idx = likes.get(like);
+            results[idx] = BatchItemResult.of(idx, BatchItemStatus.APPLIED);
+            eventPublisher.publishEvent(new FilmLikeEvent(like.getFilmId(), like.getUserId(), true, like.getLikedAt()));
+        }
+        for (FilmLike like : filmLikesDbStorage.deleteLikesIfExist(List.copyOf(unlikes.keySet()))) {
+            int idx = unlikes.get(like);
+            results[idx] = BatchItemResult.of(idx, BatchItemStatus.APPLIED);
+            eventPublisher.publishEvent(new FilmLikeEvent(like.getFilmId(), like.getUserId(), false, like.getLikedAt()));
+        }
+        return Arrays.asList(results);
+    }
+
+    private static boolean isValidLikeBatchItem(LikeBatchItem item) {
+        return item != null
+                && item.getFilmId() != null && item.getFilmId() > 0
+                && item.getUserId() != null && item.getUserId() > 0
+                && item.getOp() != null;
+    }
+
+    @Transactional(readOnly = true)
+    public List<FilmDto> getTopPopularFilms(Integer count, Long genreId, Long mpaId, Integer year) {
+        log.info("Получение списка из {} самых популярных фильмов (жанр {}, рейтинг {}, год {})",
+                count, genreId, mpaId, year);
+        ApproximatePopularityIndex approximateIndex = approximatePopularityIndex.getIfAvailable();
+        if (approximateIndex != null && genreId == null && mpaId == null && year == null) {
+            return getFilmsDtoInOrder(List.copyOf(approximateIndex.getTopPopularFilmsIds(count).keySet())).stream()
+                    .sorted(Comparator.comparing(FilmDto::getLikesCount).reversed()
+                            .thenComparing(FilmDto::getId))
+                    .toList();
+        }
+        LinkedHashMap<Long, Integer> filmsLikes = filmPopularityIndex.getTopPopularFilmsIds(count, genreId, mpaId, year);
+        return getFilmsDtoInOrder(List.copyOf(filmsLikes.keySet()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<FilmDto> getTrendingFilms(String windowValue, Integer count) {
+        log.info("Получение списка из {} фильмов в тренде за {}", count, windowValue);
+        TrendingWindow window = TrendingWindow.fromValue(windowValue)
+                .orElseThrow(() -> new ValidationException(ValidationError.builder()
+                        .field("window")
+                        .message("Окно должно быть одним из: 1h, 24h, 7d.")
+                        .rejectedValue(windowValue)
+                        .build()));
+        LinkedHashMap<Long, Integer> filmsLikes = filmTrendingIndex.getTrendingFilmsIds(window, count);
+        return getFilmsDtoInOrder(List.copyOf(filmsLikes.keySet()));
+    }
+
+    public List<FilmDto> searchFilms(String query, Integer limit) {
+        log.info("Поиск {} фильмов по запросу \"{}\".", limit, query);
+        return getFilmsDtoInOrder(filmSearchIndex.search(query, limit));
+    }
+
+    public List<FilmSuggestionDto> autocomplete(String prefix, Integer limit) {
+        return filmTitleTrie.suggest(prefix, limit);
+    }
+
+    private List<FilmDto> getFilmsDtoInOrder(List<Long> filmsIds) {
+        if (filmsIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Film> filmMap = filmStorage.findBySeveralIds(filmsIds).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+        Map<Long, RatingMpaaDto> mpaDto = getRatingsMpaaDto();
         Map<Long, List<Genre>> genres = filmGenresDbStorage.getGenresByFilmsIds(Set.copyOf(filmsIds));
 
-        List<FilmDto> topFilms = filmsIds.stream()
+        return filmsIds.stream()
                 .map(filmMap::get)
                 .filter(Objects::nonNull)
-                .map(FilmMapper::mapToDto)
-                .map(filmDto -> {
-                    GenreMapper.toDtoSet(
-                                    genres.getOrDefault(filmDto.getId(), List.of()))
-                            .forEach(filmDto.getGenres()::add);
-                    filmDto.setLikesCount(
-                            filmsLikes.get(filmDto.getId()));
-                    return filmDto;
-                }).toList();
-
-        return topFilms;
+                .map(film -> toFilmDto(film, mpaDto, genres))
+                .toList();
     }
 
-    private int getLikesCountOfFilm(Long filmId) {
-        log.info("Получение количества лайков фильма ID: {}", filmId);
-        return filmLikesDbStorage.getLikesCountOfFilm(filmId);
+    private Map<Long, RatingMpaaDto> getRatingsMpaaDto() {
+        return ratingMpaaService.findAll().stream()
+                .collect(Collectors.toMap(RatingMpaaDto::getId, ratingMpaaDto -> ratingMpaaDto));
     }
 
-    private Map<Long, Integer> getLikesCountByFilmsIds(Set<Long> filmsIds) {
-        return filmLikesDbStorage.getLikesCountByFilmsIds(filmsIds);
+    private FilmDto toFilmDto(Film film, Map<Long, RatingMpaaDto> mpaDto, Map<Long, List<Genre>> genres) {
+        FilmDto filmDto = FilmMapper.mapToDto(film);
+        filmDto.setMpa(mpaDto.get(film.getMpa().getId()));
+        GenreMapper.toDtoSet(
+                        genres.getOrDefault(film.getId(), List.of()))
+                .forEach(filmDto.getGenres()::add);
+        return filmDto;
     }
-
 }
@@ -0,0 +1,503 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dto.FilmSuggestionDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Сжатое префиксное дерево (radix tree) по названиям фильмов для автодополнения.
+ * Название нормализуется (нижний регистр, «ё» → «е», знаки препинания → пробел) и добавляется
+ * начиная с каждого слова, поэтому «перез» находит «Матрица: Перезагрузка». Ключ обрезается
+ * до MAX_KEY_LENGTH символов, а цепочки узлов с одним ребёнком сжаты в одно ребро с меткой-строкой,
+ * поэтому фильм занимает не больше MAX_KEY_LENGTH символов меток на слово. Более длинный префикс ищется
+ * по первым MAX_KEY_LENGTH символам, найденные фильмы затем сверяются с полным префиксом.
+ * Каждый узел держит TOP_K лучших фильмов своего поддерева по количеству лайков. Добавление, переименование
+ * и удаление фильма пересчитывают списки вдоль путей его ключей. Лайк меняет списки точечно: фильм
+ * поднимается только в тех узлах, где попадает в TOP_K, и подъём останавливается на первом узле, куда он
+ * не попал, — в списки предков он тогда тоже не попадёт. Снятие лайка пересчитывает только узлы,
+ * в списках которых фильм был. Ответ — один проход по префиксу без обращения к БД.
+ * Если префикс ничего не нашёл, он повторяется в другой раскладке клавиатуры («vfnh» → «матр»).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmTitleTrie {
+    public static final int TOP_K = 10;
+    static final int MAX_KEY_LENGTH = 20;
+    private static final String LATIN_LAYOUT = "`qwertyuiop[]asdfghjkl;'zxcvbnm,.";
+    private static final String CYRILLIC_LAYOUT = "ёйцукенгшщзхъфывапролджэячсмитьбю";
+
+    private final FilmStorage filmStorage;
+    private final Map<Long, String> namesByFilm = new HashMap<>();
+    private final Map<Long, Integer> likesByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node(Node.NO_LABELS);
+
+    private static final class Node {
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final long[] NO_IDS = new long[0];
+
+        char[] label;
+        char[] firstChars = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        long[] terminalIds = NO_IDS;
+        long[] top = NO_IDS;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        Node child(char firstChar) {
+            int idx = Arrays.binarySearch(firstChars, firstChar);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        void putChild(Node child) {
+            char firstChar = child.label[0];
+            int idx = Arrays.binarySearch(firstChars, firstChar);
+            if (idx >= 0) {
+                children[idx] = child;
+                return;
+            }
+            int insertAt = -idx - 1;
+            char[] newFirstChars = new char[firstChars.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(firstChars, 0, newFirstChars, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newFirstChars[insertAt] = firstChar;
+            newChildren[insertAt] = child;
+            System.arraycopy(firstChars, insertAt, newFirstChars, insertAt + 1, firstChars.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            firstChars = newFirstChars;
+            children = newChildren;
+        }
+
+        void removeChild(char firstChar) {
+            int idx = Arrays.binarySearch(firstChars, firstChar);
+            if (idx < 0) {
+                return;
+            }
+            char[] newFirstChars = new char[firstChars.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(firstChars, 0, newFirstChars, 0, idx);
+            System.arraycopy(children, 0, newChildren, 0, idx);
+            System.arraycopy(firstChars, idx + 1, newFirstChars, idx, firstChars.length - idx - 1);
+            System.arraycopy(children, idx + 1, newChildren, idx, children.length - idx - 1);
+            firstChars = newFirstChars;
+            children = newChildren;
+        }
+
+        /**
+         * Поглощает единственного ребёнка: узел без фильмов с одним ребёнком не нужен в сжатом дереве.
+         */
+        void mergeWithOnlyChild() {
+            Node child = children[0];
+            char[] newLabel = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, newLabel, label.length, child.label.length);
+            label = newLabel;
+            firstChars = child.firstChars;
+            children = child.children;
+            terminalIds = child.terminalIds;
+            top = child.top;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            root = new Node(Node.NO_LABELS);
+            namesByFilm.clear();
+            likesByFilm.clear();
+            filmStorage.forEach(film -> add(film.getId(), film.getName(), film.getLikesCount()));
+            log.info("Дерево автодополнения построено: {} фильмов.", namesByFilm.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmChanged(FilmChangedEvent event) {
+        Film film = event.getFilm();
+        lock.writeLock().lock();
+        try {
+            int likes = likesByFilm.getOrDefault(film.getId(), film.getLikesCount());
+            remove(film.getId());
+            add(film.getId(), film.getName(), likes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getFilmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmLike(FilmLikeEvent event) {
+        long filmId = event.getFilmId();
+        lock.writeLock().lock();
+        try {
+            String name = namesByFilm.get(filmId);
+            if (name == null) {
+                return;
+            }
+            int before = likesByFilm.get(filmId);
+            int after = Math.max(0, before + event.getLikesDelta());
+            if (after == before) {
+                return;
+            }
+            likesByFilm.put(filmId, after);
+            if (after > before) {
+                promote(name, filmId);
+            } else {
+                demote(name, filmId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До limit (не больше TOP_K) фильмов, в названии которых есть слово с данным префиксом,
+     * по убыванию лайков; при равенстве — по возрастанию ID. Для префикса длиннее MAX_KEY_LENGTH
+     * фильтруются лучшие фильмы его первых MAX_KEY_LENGTH символов, поэтому подсказок может быть меньше limit.
+     */
+    public List<FilmSuggestionDto> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<FilmSuggestionDto> suggestions = lookup(normalized, limit);
+            if (suggestions.isEmpty()) {
+                suggestions = lookup(switchLayout(prefix.toLowerCase(Locale.ROOT)), limit);
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<FilmSuggestionDto> lookup(String prefix, int limit) {
+        boolean truncated = prefix.length() > MAX_KEY_LENGTH;
+        Node node = find(truncated ? prefix.substring(0, MAX_KEY_LENGTH) : prefix);
+        if (node == null) {
+            return List.of();
+        }
+        List<FilmSuggestionDto> suggestions = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int idx = 0; idx < node.top.length && suggestions.size() < limit; idx++) {
+            long filmId = node.top[idx];
+            String name = namesByFilm.get(filmId);
+            if (truncated == false || hasWordStartingWith(normalize(name), prefix)) {
+                suggestions.add(new FilmSuggestionDto(filmId, name, likesByFilm.get(filmId)));
+            }
+        }
+        return suggestions;
+    }
+
+    private static boolean hasWordStartingWith(String normalizedName, String prefix) {
+        for (int idx = normalizedName.indexOf(prefix); idx >= 0; idx = normalizedName.indexOf(prefix, idx + 1)) {
+            if (idx == 0 || normalizedName.charAt(idx - 1) == ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(Long filmId, String name, int likes) {
+        namesByFilm.put(filmId, name);
+        likesByFilm.put(filmId, likes);
+        for (String key : keys(name)) {
+            List<Node> path = insert(key);
+            Node last = path.getLast();
+            last.terminalIds = append(last.terminalIds, filmId);
+            recomputeTop(path);
+        }
+    }
+
+    private void remove(Long filmId) {
+        String name = namesByFilm.remove(filmId);
+        if (name == null) {
+            return;
+        }
+        for (String key : keys(name)) {
+            List<Node> path = path(key);
+            Node last = path.getLast();
+            last.terminalIds = Arrays.stream(last.terminalIds)
+                    .filter(id -> id != filmId)
+                    .toArray();
+            for (int depth = path.size() - 1; depth > 0; depth--) {
+                Node node = path.get(depth);
+                if (node.terminalIds.length > 0) {
+                    continue;
+                }
+                if (node.children.length == 0) {
+                    path.get(depth - 1).removeChild(node.label[0]);
+                } else if (node.children.length == 1) {
+                    node.mergeWithOnlyChild();
+                }
+            }
+            recomputeTop(path);
+        }
+        likesByFilm.remove(filmId);
+    }
+
+    /**
+     * Находит или создаёт узел ключа, разделяя ребро, если ключ кончается или расходится посреди метки.
+     * Возвращает узлы от корня до узла ключа.
+     */
+    private List<Node> insert(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < key.length()) {
+            Node child = node.child(key.charAt(pos));
+            if (child == null) {
+                child = new Node(key.substring(pos).toCharArray());
+                node.putChild(child);
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefixLength(child.label, key, pos);
+            if (common < child.label.length) {
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.putChild(child);
+                middle.top = child.top;
+                node.putChild(middle);
+                child = middle;
+            }
+            path.add(child);
+            node = child;
+            pos += common;
+        }
+        return path;
+    }
+
+    /**
+     * Узлы от корня до узла существующего ключа.
+     */
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int pos = 0;
+        while (pos < key.length()) {
+            node = node.child(key.charAt(pos));
+            if (node == null || commonPrefixLength(node.label, key, pos) < node.label.length) {
+                break;
+            }
+            path.add(node);
+            pos += node.label.length;
+        }
+        return path;
+    }
+
+    /**
+     * Узел, поддерево которого содержит все ключи с данным префиксом; префикс может кончаться посреди метки.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            node = node.child(prefix.charAt(pos));
+            if (node == null) {
+                return null;
+            }
+            int common = commonPrefixLength(node.label, prefix, pos);
+            if (common < node.label.length && pos + common < prefix.length()) {
+                return null;
+            }
+            pos += common;
+        }
+        return node;
+    }
+
+    private static int commonPrefixLength(char[] label, String key, int from) {
+        int length = 0;
+        while (length < label.length && from + length < key.length() && label[length] == key.charAt(from + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private void recomputeTop(List<Node> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            recomputeTop(path.get(depth));
+        }
+    }
+
+    private void recomputeTop(Node node) {
+        PriorityQueue<Long> best = new PriorityQueue<>(rankingOrder().reversed());
+        offerAll(best, node.terminalIds);
+        for (Node child : node.children) {
+            offerAll(best, child.top);
+        }
+        long[] top = new long[best.size()];
+        for (int idx = top.length - 1; idx >= 0; idx--) {
+            top[idx] = best.poll();
+        }
+        node.top = top;
+    }
+
+    /**
+     * Фильм стал лучше: в каждом узле его пути он поднимается внутри списка или вытесняет последний фильм.
+     * Проход по пути останавливается на узле, в список которого фильм не попал: K-й фильм предка
+     * не хуже K-го фильма узла, так что выше фильм тоже не попадёт.
+     */
+    private void promote(String name, long filmId) {
+        Comparator<Long> order = rankingOrder();
+        for (String key : keys(name)) {
+            List<Node> path = path(key);
+            for (int depth = path.size() - 1; depth >= 0; depth--) {
+                Node node = path.get(depth);
+                long[] top = node.top;
+                int idx = indexOf(top, filmId);
+                if (idx < 0) {
+                    if (top.length == TOP_K && order.compare(filmId, top[top.length - 1]) >= 0) {
+                        break;
+                    }
+                    top = top.length == TOP_K ? top : Arrays.copyOf(top, top.length + 1);
+                    idx = top.length - 1;
+                    top[idx] = filmId;
+                    node.top = top;
+                }
+                for (; idx > 0 && order.compare(top[idx], top[idx - 1]) < 0; idx--) {
+                    long previous = top[idx - 1];
+                    top[idx - 1] = top[idx];
+                    top[idx] = previous;
+                }
+            }
+        }
+    }
+
+    /**
+     * Фильм стал хуже: меняются только списки, в которых он был, — на его место может прийти другой фильм.
+     * Такие узлы собираются со всех путей фильма и пересчитываются от глубоких к мелким, чтобы общий предок
+     * двух путей собирался из уже исправленных списков детей.
+     */
+    private void demote(String name, long filmId) {
+        Map<Node, Integer> depths = new IdentityHashMap<>();
+        for (String key : keys(name)) {
+            List<Node> path = path(key);
+            for (int depth = path.size() - 1; depth >= 0 && indexOf(path.get(depth).top, filmId) >= 0; depth--) {
+                depths.put(path.get(depth), depth);
+            }
+        }
+        depths.entrySet().stream()
+                .sorted(Map.Entry.<Node, Integer>comparingByValue().reversed())
+                .forEach(entry -> recomputeTop(entry.getKey()));
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int idx = 0; idx < ids.length; idx++) {
+            if (ids[idx] == id) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private void offerAll(PriorityQueue<Long> best, long[] filmsIds) {
+        for (long filmId : filmsIds) {
+            if (best.contains(filmId)) {
+                continue;
+            }
+            best.offer(filmId);
+            if (best.size() > TOP_K) {
+                best.poll();
+            }
+        }
+    }
+
+    private Comparator<Long> rankingOrder() {
+        return Comparator.<Long>comparingInt(likesByFilm::get).reversed()
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    private static long[] append(long[] ids, long id) {
+        long[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    /**
+     * Ключи фильма: нормализованное название, начиная с каждого слова, не длиннее MAX_KEY_LENGTH символов.
+     */
+    private static Set<String> keys(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int idx = 0; idx < normalized.length(); idx++) {
+            if (idx == 0 || normalized.charAt(idx - 1) == ' ') {
+                keys.add(normalized.substring(idx, Math.min(normalized.length(), idx + MAX_KEY_LENGTH)));
+            }
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int idx = 0; idx < text.length(); idx++) {
+            char ch = Character.toLowerCase(text.charAt(idx));
+            if (ch == 'ё') {
+                ch = 'е';
+            }
+            if (Character.isLetterOrDigit(ch)) {
+                normalized.append(ch);
+            } else if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Перевод текста, набранного не в той раскладке: латиница → кириллица и наоборот.
+     * Принимает текст до нормализации, потому что «;», «,» и другие знаки соответствуют русским буквам.
+     */
+    static String switchLayout(String text) {
+        StringBuilder switched = new StringBuilder(text.length());
+        for (int idx = 0; idx < text.length(); idx++) {
+            char ch = text.charAt(idx);
+            int latin = LATIN_LAYOUT.indexOf(ch);
+            int cyrillic = CYRILLIC_LAYOUT.indexOf(ch);
+            if (latin >= 0) {
+                switched.append(CYRILLIC_LAYOUT.charAt(latin));
+            } else if (cyrillic >= 0) {
+                switched.append(LATIN_LAYOUT.charAt(cyrillic));
+            } else {
+                switched.append(ch);
+            }
+        }
+        return normalize(switched.toString());
+    }
+}
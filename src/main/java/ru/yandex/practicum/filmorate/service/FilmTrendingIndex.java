@@ -0,0 +1,222 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Счётчики лайков фильмов по временным корзинам: 12 пятиминутных корзин для окна в час
+ * и 168 часовых корзин для окон в сутки и неделю. Окно считается суммой корзин,
+ * поэтому текущая корзина входит в окно целиком.
+ * Перестроение собирает корзины в новую карту, а события тем временем меняют текущую.
+ * Перед подменой корзины фильмов, которых события коснулись во время чтения, пересобираются из БД заново,
+ * чтобы лайк, попавший и в выборку, и в событие, не учитывался дважды.
+ */
+@Slf4j
+@Component
+public class FilmTrendingIndex {
+    private static final long FINE_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long COARSE_BUCKET_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int FINE_BUCKETS_COUNT = 12;
+    private static final int COARSE_BUCKETS_COUNT = 168;
+
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final Clock clock;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, FilmBuckets> bucketsByFilm = new ConcurrentHashMap<>();
+    private Set<Long> touchedDuringRebuild;
+
+    @Autowired
+    public FilmTrendingIndex(FilmLikesDbStorage filmLikesDbStorage) {
+        this(filmLikesDbStorage, Clock.systemDefaultZone());
+    }
+
+    FilmTrendingIndex(FilmLikesDbStorage filmLikesDbStorage, Clock clock) {
+        this.filmLikesDbStorage = filmLikesDbStorage;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        setTouchedDuringRebuild(ConcurrentHashMap.newKeySet());
+        LocalDateTime since = LocalDateTime.now(clock).minus(TrendingWindow.WEEK.getDuration());
+        long now = clock.millis();
+        Map<Long, FilmBuckets> rebuilt = new ConcurrentHashMap<>();
+        try {
+            filmLikesDbStorage.forEachLikeSince(since,
+                    (filmId, likedAt) -> changeLikes(rebuilt, filmId, likedAt, 1, now));
+        } catch (RuntimeException e) {
+            setTouchedDuringRebuild(null);
+            throw e;
+        }
+
+        rebuildLock.writeLock().lock();
+        try {
+            Set<Long> touched = touchedDuringRebuild;
+            touched.forEach(rebuilt::remove);
+            filmLikesDbStorage.forEachLikeOfFilmsSince(touched, since,
+                    (filmId, likedAt) -> changeLikes(rebuilt, filmId, likedAt, 1, now));
+            bucketsByFilm = rebuilt;
+        } finally {
+            touchedDuringRebuild = null;
+            rebuildLock.writeLock().unlock();
+        }
+        log.info("Индекс трендов построен: {} фильмов с лайками за неделю.", rebuilt.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmLike(FilmLikeEvent event) {
+        if (event.getLikedAt() == null) {
+            return;
+        }
+        rebuildLock.readLock().lock();
+        try {
+            markTouched(event.getFilmId());
+            changeLikes(bucketsByFilm, event.getFilmId(), event.getLikedAt(), event.getLikesDelta(), clock.millis());
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Суммирует окно по корзинам каждого фильма, у которого есть лайки за последнюю неделю:
+     * запрос стоит O(F * (размер кольца + log count)), где F — число таких фильмов. Бегущие суммы по окнам
+     * пришлось бы пересчитывать при каждом сдвиге корзин у всех фильмов; F ограничено недельным окном,
+     * а evictIdleFilms убирает фильмы без лайков за неделю.
+     */
+    public LinkedHashMap<Long, Integer> getTrendingFilmsIds(TrendingWindow window, int count) {
+        long now = clock.millis();
+        Comparator<Map.Entry<Long, Integer>> order = Map.Entry.<Long, Integer>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Integer>> top = new PriorityQueue<>(order);
+
+        bucketsByFilm.forEach((filmId, buckets) -> {
+            int likes = buckets.sum(window, now);
+            if (likes <= 0) {
+                return;
+            }
+            top.add(Map.entry(filmId, likes));
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+
+        List<Map.Entry<Long, Integer>> sorted = new ArrayList<>(top);
+        sorted.sort(order.reversed());
+        LinkedHashMap<Long, Integer> result = new LinkedHashMap<>();
+        sorted.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        rebuildLock.readLock().lock();
+        try {
+            markTouched(event.getFilmId());
+            bucketsByFilm.remove(event.getFilmId());
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void evictIdleFilms() {
+        long now = clock.millis();
+        bucketsByFilm.entrySet().removeIf(entry -> entry.getValue().sum(TrendingWindow.WEEK, now) <= 0);
+    }
+
+    private void markTouched(Long filmId) {
+        Set<Long> touched = touchedDuringRebuild;
+        if (touched != null) {
+            touched.add(filmId);
+        }
+    }
+
+    private void setTouchedDuringRebuild(Set<Long> touched) {
+        rebuildLock.writeLock().lock();
+        try {
+            touchedDuringRebuild = touched;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private void changeLikes(Map<Long, FilmBuckets> buckets, Long filmId, LocalDateTime likedAt, int delta,
+                             long now) {
+        long likedAtMillis = likedAt.atZone(clock.getZone()).toInstant().toEpochMilli();
+        buckets.computeIfAbsent(filmId, id -> new FilmBuckets())
+                .add(likedAtMillis, delta, now);
+    }
+
+    private static final class FilmBuckets {
+        final BucketRing fine = new BucketRing(FINE_BUCKET_MILLIS, FINE_BUCKETS_COUNT);
+        final BucketRing coarse = new BucketRing(COARSE_BUCKET_MILLIS, COARSE_BUCKETS_COUNT);
+
+        synchronized void add(long timeMillis, int delta, long now) {
+            fine.add(timeMillis, delta, now);
+            coarse.add(timeMillis, delta, now);
+        }
+
+        synchronized int sum(TrendingWindow window, long now) {
+            return switch (window) {
+                case HOUR -> fine.sum(FINE_BUCKETS_COUNT, now);
+                case DAY -> coarse.sum((int) TrendingWindow.DAY.getDuration().toHours(), now);
+                case WEEK -> coarse.sum(COARSE_BUCKETS_COUNT, now);
+            };
+        }
+    }
+
+    private static final class BucketRing {
+        final long bucketMillis;
+        final int[] counts;
+        final long[] epochs;
+
+        BucketRing(long bucketMillis, int size) {
+            this.bucketMillis = bucketMillis;
+            this.counts = new int[size];
+            this.epochs = new long[size];
+            Arrays.fill(epochs, Long.MIN_VALUE);
+        }
+
+        void add(long timeMillis, int delta, long now) {
+            long nowEpoch = now / bucketMillis;
+            long epoch = Math.min(timeMillis / bucketMillis, nowEpoch);
+            if (epoch <= nowEpoch - counts.length) {
+                return;
+            }
+
+            int idx = (int) Math.floorMod(epoch, (long) counts.length);
+            if (epochs[idx] != epoch) {
+                epochs[idx] = epoch;
+                counts[idx] = 0;
+            }
+            counts[idx] += delta;
+        }
+
+        int sum(int bucketsCount, long now) {
+            long nowEpoch = now / bucketMillis;
+            int sum = 0;
+            for (int idx = 0; idx < counts.length; idx++) {
+                if (epochs[idx] > nowEpoch - bucketsCount && epochs[idx] <= nowEpoch) {
+                    sum += counts[idx];
+                }
+            }
+            return Math.max(sum, 0);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+
+/**
+ * Пересчитывает users.followers_count при старте: в базе, созданной до появления колонки,
+ * она добавляется со значением 0 и без пересчёта так бы и осталась нулевой.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowersCountRepairJob {
+    private final FriendshipDbStorage friendshipDbStorage;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void repair() {
+        log.info("Пересчёт счётчиков подписчиков пользователей.");
+        int repairedCount = friendshipDbStorage.recountFollowersCounts();
+        if (repairedCount > 0) {
+            log.warn("Исправлены счётчики подписчиков у {} пользователей.", repairedCount);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Неизменяемое множество ID друзей пользователя. Множества до {@link #BITMAP_THRESHOLD} элементов
+ * хранятся отсортированным массивом, большие — сжатым битовым индексом в стиле Roaring,
+ * где пересечение, объединение и подсчёт идут поразрядными операциями над контейнерами.
+ * Представление выбирается автоматически и меняется при росте или уменьшении множества.
+ */
+public interface FriendSet {
+    int BITMAP_THRESHOLD = 4096;
+
+    static FriendSet empty() {
+        return SortedArrayFriendSet.EMPTY;
+    }
+
+    /**
+     * Создаёт множество из отсортированного по возрастанию массива неотрицательных ID без повторов.
+     */
+    static FriendSet of(long[] sortedIds) {
+        return sortedIds.length > BITMAP_THRESHOLD
+                ? RoaringFriendSet.of(sortedIds)
+                : new SortedArrayFriendSet(sortedIds);
+    }
+
+    int size();
+
+    boolean contains(long id);
+
+    FriendSet with(long id);
+
+    FriendSet without(long id);
+
+    /**
+     * Возвращает ID по возрастанию. Массив может быть общим с множеством и не должен изменяться.
+     */
+    long[] toArray();
+
+    /**
+     * Копирует не больше maxCount наименьших ID в target начиная с offset и возвращает их число.
+     */
+    int copyTo(long[] target, int offset, int maxCount);
+
+    FriendSet and(FriendSet other);
+
+    FriendSet or(FriendSet other);
+
+    int andCardinality(FriendSet other);
+}
@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.model.FriendshipChangedEvent;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рекомендации «возможно, вы знакомы»: пользователи, которые есть в друзьях у друзей,
+ * ранжируются по количеству общих друзей. Обход двух уровней графа дружбы ограничен
+ * числом просматриваемых друзей на каждом уровне: если друзей больше лимита, берётся равномерная
+ * случайная выборка, а не первые по ID, чтобы рекомендации не смещались к давним пользователям.
+ * Для таких пользователей число общих друзей — оценка по выборке. Результат кэшируется и сбрасывается
+ * при изменении друзей самого пользователя или любого из просмотренных друзей.
+ * Кэш ограничен по размеру. Связи «друг → пользователи, чьи рекомендации от него зависят» добавляются
+ * и удаляются вместе с записью кэша под блокировкой её ключа, в том числе при вытеснении,
+ * поэтому карта связей растёт с размером кэша, а не с графом.
+ */
+@Component
+public class FriendSuggestions {
+    private static final Comparator<Suggestion> RANKING_ORDER = Comparator
+            .comparingInt(Suggestion::mutualFriendsCount).reversed()
+            .thenComparingLong(Suggestion::userId);
+
+    private final FriendshipGraph friendshipGraph;
+    private final int maxFriends;
+    private final int maxFriendsOfFriend;
+    private final int maxSuggestions;
+    private final Cache<Long, CachedSuggestions> cache;
+    private final Map<Long, Set<Long>> dependentUsers = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public record Suggestion(long userId, int mutualFriendsCount) {
+    }
+
+    private record CachedSuggestions(List<Suggestion> suggestions, long[] visitedFriends) {
+    }
+
+    public FriendSuggestions(FriendshipGraph friendshipGraph,
+                             @Value("${filmorate.friends.suggestions.max-friends:200}") int maxFriends,
+                             @Value("${filmorate.friends.suggestions.max-friends-of-friend:500}")
+                             int maxFriendsOfFriend,
+                             @Value("${filmorate.friends.suggestions.max-suggestions:100}") int maxSuggestions,
+                             @Value("${filmorate.friends.suggestions.cache-size:10000}") int cacheSize) {
+        this.friendshipGraph = friendshipGraph;
+        this.maxFriends = maxFriends;
+        this.maxFriendsOfFriend = maxFriendsOfFriend;
+        this.maxSuggestions = maxSuggestions;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .<Long, CachedSuggestions>evictionListener((userId, cached, cause) -> untrack(userId, cached))
+                .build();
+    }
+
+    public List<Suggestion> getSuggestions(long userId, int limit) {
+        CachedSuggestions cached = cache.getIfPresent(userId);
+        if (cached == null) {
+            long invalidationsBefore = invalidations.get();
+            cached = computeSuggestions(userId);
+            CachedSuggestions computed = cached;
+            cache.asMap().compute(userId, (id, previous) -> {
+                untrack(id, previous);
+                track(id, computed);
+                return computed;
+            });
+            if (invalidations.get() != invalidationsBefore) {
+                invalidate(userId);
+            }
+        }
+        List<Suggestion> suggestions = cached.suggestions();
+        return suggestions.subList(0, Math.min(limit, suggestions.size()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        invalidations.incrementAndGet();
+        long userId = event.getUserId();
+        invalidate(userId);
+        Set<Long> dependents = dependentUsers.get(userId);
+        if (dependents != null) {
+            List.copyOf(dependents).forEach(this::invalidate);
+        }
+    }
+
+    /**
+     * ID друзей, от которых зависят закэшированные рекомендации.
+     */
+    Set<Long> getTrackedFriendsIds() {
+        return Set.copyOf(dependentUsers.keySet());
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private void invalidate(long userId) {
+        cache.asMap().computeIfPresent(userId, (id, cached) -> {
+            untrack(id, cached);
+            return null;
+        });
+    }
+
+    private void track(long userId, CachedSuggestions cached) {
+        for (long friendId : cached.visitedFriends()) {
+            dependentUsers.compute(friendId, (id, users) -> {
+                Set<Long> result = users != null ? users : ConcurrentHashMap.newKeySet();
+                result.add(userId);
+                return result;
+            });
+        }
+    }
+
+    private void untrack(long userId, CachedSuggestions cached) {
+        if (cached == null) {
+            return;
+        }
+        for (long friendId : cached.visitedFriends()) {
+            dependentUsers.computeIfPresent(friendId, (id, users) -> {
+                users.remove(userId);
+                return users.isEmpty() ? null : users;
+            });
+        }
+    }
+
+    private CachedSuggestions computeSuggestions(long userId) {
+        FriendSet friends = friendshipGraph.getFriends(userId);
+        long[] visitedFriends = new long[Math.min(friends.size(), maxFriends)];
+        sample(friends, visitedFriends, 0, visitedFriends.length);
+
+        long[] candidates = new long[0];
+        int candidatesCount = 0;
+        for (long friendId : visitedFriends) {
+            FriendSet friendsOfFriend = friendshipGraph.getFriends(friendId);
+            int length = Math.min(friendsOfFriend.size(), maxFriendsOfFriend);
+            if (candidatesCount + length > candidates.length) {
+                candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, candidatesCount + length));
+            }
+            candidatesCount += sample(friendsOfFriend, candidates, candidatesCount, length);
+        }
+        Arrays.sort(candidates, 0, candidatesCount);
+
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(RANKING_ORDER.reversed());
+        int idx = 0;
+        while (idx < candidatesCount) {
+            long candidateId = candidates[idx];
+            int runEnd = idx;
+            while (runEnd < candidatesCount && candidates[runEnd] == candidateId) {
+                runEnd++;
+            }
+            if (candidateId != userId && friends.contains(candidateId) == false) {
+                top.add(new Suggestion(candidateId, runEnd - idx));
+                if (top.size() > maxSuggestions) {
+                    top.poll();
+                }
+            }
+            idx = runEnd;
+        }
+
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(RANKING_ORDER);
+        return new CachedSuggestions(List.copyOf(result), visitedFriends);
+    }
+
+    /**
+     * Копирует в target начиная с offset равномерную случайную выборку из count ID множества
+     * (выборочный обход, алгоритм S Кнута): каждый ID попадает в неё с равной вероятностью,
+     * выборка остаётся отсортированной, а лишней памяти, кроме массива множества, не нужно.
+     */
+    private static int sample(FriendSet ids, long[] target, int offset, int count) {
+        if (count >= ids.size()) {
+            return ids.copyTo(target, offset, count);
+        }
+        long[] all = ids.toArray();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int selected = 0;
+        for (int idx = 0; idx < all.length && selected < count; idx++) {
+            if (random.nextInt(all.length - idx) < count - selected) {
+                target[offset + selected++] = all[idx];
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+import ru.yandex.practicum.filmorate.model.FriendshipChangedEvent;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранится неизменяемое множество ID друзей
+ * ({@link FriendSet} — отсортированный массив или сжатый битовый индекс для больших множеств).
+ * Изменение заменяет множество целиком под блокировкой своего сегмента, поэтому чтение идёт
+ * без блокировок, а изменения разных пользователей не ждут друг друга.
+ * Перестроение загружает граф в новую карту, не трогая текущую; изменения, пришедшие во время загрузки,
+ * применяются к текущей карте и запоминаются, а затем повторяются на новой карте перед её подменой.
+ * Добавление и удаление друга идемпотентны, поэтому повтор изменения, уже попавшего в загрузку, безвреден.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipGraph {
+    private static final int LOCK_STRIPES = 64;
+
+    private final FriendshipDbStorage friendshipDbStorage;
+    private final Object[] locks = createLocks();
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, FriendSet> friendsByUser = new ConcurrentHashMap<>();
+    private Queue<FriendshipChange> changesDuringRebuild;
+
+    private record FriendshipChange(long userId, long friendId, boolean added) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        setChangesDuringRebuild(new ConcurrentLinkedQueue<>());
+        Map<Long, FriendSet> rebuilt;
+        try {
+            AdjacencyLoader loader = new AdjacencyLoader();
+            friendshipDbStorage.forEachFriendship(loader);
+            loader.flush();
+            rebuilt = new ConcurrentHashMap<>(loader.friendsByUser);
+        } catch (RuntimeException e) {
+            setChangesDuringRebuild(null);
+            throw e;
+        }
+
+        rebuildLock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(change -> apply(rebuilt, change));
+            friendsByUser = rebuilt;
+            changesDuringRebuild = null;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        log.info("Граф дружбы построен: {} пользователей с друзьями.", rebuilt.size());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        if (event.isAdded()) {
+            addFriend(event.getUserId(), event.getFriendId());
+        } else {
+            removeFriend(event.getUserId(), event.getFriendId());
+        }
+    }
+
+    public void addFriend(long userId, long friendId) {
+        change(new FriendshipChange(userId, friendId, true));
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        change(new FriendshipChange(userId, friendId, false));
+    }
+
+    public FriendSet getFriends(long userId) {
+        return friendsByUser.getOrDefault(userId, FriendSet.empty());
+    }
+
+    /**
+     * Возвращает отсортированные ID друзей. Массив может быть общим для всех читателей и не должен изменяться.
+     */
+    public long[] getFriendsIds(long userId) {
+        return getFriends(userId).toArray();
+    }
+
+    public int getFriendsCount(long userId) {
+        return getFriends(userId).size();
+    }
+
+    public boolean isFriend(long userId, long friendId) {
+        return getFriends(userId).contains(friendId);
+    }
+
+    public long[] getCommonFriendsIds(long userId, long otherUserId) {
+        return getFriends(userId).and(getFriends(otherUserId)).toArray();
+    }
+
+    public int getCommonFriendsCount(long userId, long otherUserId) {
+        return getFriends(userId).andCardinality(getFriends(otherUserId));
+    }
+
+    private void change(FriendshipChange change) {
+        rebuildLock.readLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+            apply(friendsByUser, change);
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private void apply(Map<Long, FriendSet> graph, FriendshipChange change) {
+        long userId = change.userId();
+        synchronized (lockFor(userId)) {
+            FriendSet current = graph.getOrDefault(userId, FriendSet.empty());
+            FriendSet friends = change.added() ? current.with(change.friendId()) : current.without(change.friendId());
+            if (friends.size() == 0) {
+                graph.remove(userId);
+            } else {
+                graph.put(userId, friends);
+            }
+        }
+    }
+
+    private void setChangesDuringRebuild(Queue<FriendshipChange> changes) {
+        rebuildLock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private Object lockFor(long userId) {
+        return locks[(int) Math.floorMod(userId, (long) LOCK_STRIPES)];
+    }
+
+    private static Object[] createLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int idx = 0; idx < LOCK_STRIPES; idx++) {
+            locks[idx] = new Object();
+        }
+        return locks;
+    }
+
+    private static class AdjacencyLoader implements BiConsumer<Long, Long> {
+        private final Map<Long, FriendSet> friendsByUser = new HashMap<>();
+        private long currentUserId;
+        private long[] buffer = new long[16];
+        private int size;
+
+        @Override
+        public void accept(Long userId, Long friendId) {
+            if (size > 0 && userId != currentUserId) {
+                flush();
+            }
+            currentUserId = userId;
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = friendId;
+        }
+
+        void flush() {
+            if (size > 0) {
+                friendsByUser.put(currentUserId, FriendSet.of(Arrays.copyOf(buffer, size)));
+                size = 0;
+            }
+        }
+    }
+}
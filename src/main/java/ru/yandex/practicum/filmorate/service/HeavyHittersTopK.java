@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.*;
+
+/**
+ * Top-k наиболее частых ключей поверх Count-Min sketch: отслеживается не больше capacity
+ * кандидатов, новый ключ вытесняет кандидата с наименьшей оценкой, если его оценка больше.
+ */
+public class HeavyHittersTopK {
+    private static final Comparator<Candidate> ORDER = Comparator
+            .comparingLong(Candidate::estimate)
+            .thenComparing(Comparator.comparingLong(Candidate::key).reversed());
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<Long, Candidate> candidates = new HashMap<>();
+    private final NavigableSet<Candidate> ordered = new TreeSet<>(ORDER);
+
+    private record Candidate(long key, long estimate) {
+    }
+
+    public HeavyHittersTopK(CountMinSketch sketch, int capacity) {
+        this.sketch = sketch;
+        this.capacity = capacity;
+    }
+
+    public void add(long key, long delta) {
+        sketch.add(key, delta);
+        long estimate = sketch.estimate(key);
+        Candidate previous = candidates.remove(key);
+        if (previous != null) {
+            ordered.remove(previous);
+        } else if (delta <= 0) {
+            return;
+        }
+
+        if (estimate <= 0) {
+            return;
+        }
+        if (previous == null && candidates.size() >= capacity) {
+            Candidate weakest = ordered.first();
+            if (weakest.estimate() >= estimate) {
+                return;
+            }
+            ordered.pollFirst();
+            candidates.remove(weakest.key());
+        }
+
+        Candidate candidate = new Candidate(key, estimate);
+        candidates.put(key, candidate);
+        ordered.add(candidate);
+    }
+
+    public void remove(long key) {
+        Candidate candidate = candidates.remove(key);
+        if (candidate != null) {
+            ordered.remove(candidate);
+        }
+    }
+
+    public LinkedHashMap<Long, Long> top(int count) {
+        LinkedHashMap<Long, Long> result = new LinkedHashMap<>();
+        Iterator<Candidate> iterator = ordered.descendingIterator();
+        while (result.size() < count && iterator.hasNext()) {
+            Candidate candidate = iterator.next();
+            result.put(candidate.key(), candidate.estimate());
+        }
+        return result;
+    }
+
+    public void clear() {
+        sketch.clear();
+        candidates.clear();
+        ordered.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import java.util.Optional;
+
+/**
+ * Пересчитывает films.likes_count по таблице film_likes порциями по id,
+ * чтобы не держать блокировку на всей таблице фильмов.
+ * Первый пересчёт идёт при старте, до построения индексов в памяти: в базе, созданной до появления
+ * likes_count, колонка добавляется со значением 0 и иначе оставалась бы нулевой до ночного запуска.
+ * Расхождение счётчика значит, что события лайков мимо приложения прошли и мимо индексов в памяти,
+ * поэтому после исправления перестраиваются все индексы, которые ведутся по лайкам.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikesCountRepairJob {
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final FilmPopularityIndex filmPopularityIndex;
+    private final ObjectProvider<ApproximatePopularityIndex> approximatePopularityIndex;
+    private final FilmTrendingIndex filmTrendingIndex;
+    private final FilmTitleTrie filmTitleTrie;
+    private final FilmDtoCache filmDtoCache;
+
+    @Value("${filmorate.likes-count-repair.chunk-size:500}")
+    private int chunkSize;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void repairOnStartup() {
+        int repairedCount = recountAll();
+        if (repairedCount > 0) {
+            log.warn("При старте исправлены счётчики лайков у {} фильмов.", repairedCount);
+        }
+    }
+
+    @Scheduled(cron = "${filmorate.likes-count-repair.cron:0 0 4 * * *}")
+    public int repair() {
+        int repairedCount = recountAll();
+        if (repairedCount > 0) {
+            log.warn("Исправлены счётчики лайков у {} фильмов.", repairedCount);
+            filmPopularityIndex.rebuild();
+            approximatePopularityIndex.ifAvailable(ApproximatePopularityIndex::rebuild);
+            filmTrendingIndex.rebuild();
+            filmTitleTrie.rebuild();
+            filmDtoCache.invalidateAll();
+        }
+        return repairedCount;
+    }
+
+    private int recountAll() {
+        log.info("Пересчёт счётчиков лайков фильмов порциями по {}.", chunkSize);
+        long afterFilmId = 0;
+        int repairedCount = 0;
+        Optional<Long> upperFilmId = filmLikesDbStorage.getFilmsChunkUpperId(afterFilmId, chunkSize);
+        while (upperFilmId.isPresent()) {
+            repairedCount += filmLikesDbStorage.recountLikesOfFilmsChunk(afterFilmId, upperFilmId.get());
+            afterFilmId = upperFilmId.get();
+            upperFilmId = filmLikesDbStorage.getFilmsChunkUpperId(afterFilmId, chunkSize);
+        }
+        return repairedCount;
+    }
+}
@@ -0,0 +1,307 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Режим отложенной записи лайков: операции копятся в ограниченном буфере,
+ * схлопываются по паре (фильм, пользователь) — побеждает последняя — и пишутся в БД пачками
+ * по таймеру или при накоплении batch-size операций. Операция, которую не удалось записать даже по одной,
+ * возвращается в буфер и повторяется при следующих записях; после MAX_WRITE_ATTEMPTS неудачных попыток
+ * она отбрасывается и учитывается в метрике dead_lettered.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikesWriteBehindBuffer {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "likes-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private LinkedHashMap<FilmLike, Boolean> pending = new LinkedHashMap<>();
+    private Map<FilmLike, Boolean> writing = Map.of();
+    private final Map<FilmLike, Integer> failedAttempts = new HashMap<>();
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Counter deadLetteredCounter;
+
+    public LikesWriteBehindBuffer(FilmLikesDbStorage filmLikesDbStorage,
+                                  ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                  @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs) {
+        this.filmLikesDbStorage = filmLikesDbStorage;
+        this.eventPublisher = eventPublisher;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+
+        Gauge.builder("filmorate.likes.write_behind.queue.depth", this, LikesWriteBehindBuffer::getQueueDepth)
+                .description("Количество операций с лайками, ожидающих записи в БД")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("filmorate.likes.write_behind.flush")
+                .description("Время записи пачки лайков в БД")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("filmorate.likes.write_behind.flushed")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("filmorate.likes.write_behind.rejected")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("filmorate.likes.write_behind.failed")
+                .description("Неудачные попытки записать отдельную операцию с лайком")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("filmorate.likes.write_behind.dead_lettered")
+                .description("Операции с лайками, отброшенные после всех попыток записи")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Включена отложенная запись лайков: буфер {}, пачка {}, интервал {} мс.",
+                capacity, batchSize, flushIntervalMs);
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        log.info("Остановка отложенной записи лайков, в буфере {} операций.", getQueueDepth());
+        scheduler.shutdown();
+        if (scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS) == false) {
+            log.warn("Не дождались завершения текущей записи лайков.");
+        }
+        flush();
+        takePending().forEach((filmLike, liked) -> deadLetter(filmLike, liked, "приложение остановлено"));
+    }
+
+    public void enqueue(Long filmId, Long userId, boolean liked) {
+        enqueue(filmId, userId, liked, null);
+    }
+
+    /**
+     * Ставит операцию в очередь, только если она меняет состояние пары фильм/пользователь. Состояние берётся
+     * из последней операции в буфере или в записываемой сейчас пачке, а если их нет — из persisted,
+     * прочитанного вызывающим из БД до вызова.
+     *
+     * @return false, если лайк уже стоит (для постановки) или его нет (для снятия)
+     */
+    public boolean enqueueIfChanged(Long filmId, Long userId, boolean liked, boolean persisted) {
+        return enqueue(filmId, userId, liked, persisted);
+    }
+
+    private boolean enqueue(Long filmId, Long userId, boolean liked, Boolean persisted) {
+        FilmLike key = new FilmLike(filmId, userId, LocalDateTime.now());
+        lock.lock();
+        try {
+            long nanosLeft = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            while (true) {
+                if (persisted != null && currentState(key, persisted) == liked) {
+                    return false;
+                }
+                if (pending.size() < capacity || pending.containsKey(key)) {
+                    break;
+                }
+                if (nanosLeft <= 0) {
+                    rejectedCounter.increment();
+                    throw new ServiceUnavailableException("Очередь лайков переполнена, повторите запрос позже.");
+                }
+                nanosLeft = notFull.awaitNanos(nanosLeft);
+            }
+            pending.remove(key);
+            pending.put(key, liked);
+            failedAttempts.remove(key);
+            if (pending.size() >= batchSize) {
+                requestFlush();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Запись лайка прервана.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean currentState(FilmLike key, boolean persisted) {
+        Boolean liked = pending.get(key);
+        if (liked == null) {
+            liked = writing.get(key);
+        }
+        return liked != null ? liked : persisted;
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        Map<FilmLike, Boolean> batch = takePending();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            flushTimer.record(() -> {
+                List<FilmLike> likes = new ArrayList<>();
+                List<FilmLike> unlikes = new ArrayList<>();
+                batch.forEach((like, liked) -> (liked ? likes : unlikes).add(like));
+                writeInChunks(likes, true);
+                writeInChunks(unlikes, false);
+            });
+        } finally {
+            lock.lock();
+            try {
+                writing = Map.of();
+            } finally {
+                lock.unlock();
+            }
+        }
+        flushedCounter.increment(batch.size());
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Ошибка при записи пачки лайков.", e);
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                log.debug("Запись лайков уже останавливается, пачка будет записана при остановке.");
+            }
+        }
+    }
+
+    private Map<FilmLike, Boolean> takePending() {
+        lock.lock();
+        try {
+            Map<FilmLike, Boolean> batch = pending;
+            pending = new LinkedHashMap<>();
+            writing = batch;
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeInChunks(List<FilmLike> filmLikes, boolean liked) {
+        for (int from = 0; from < filmLikes.size(); from += batchSize) {
+            List<FilmLike> chunk = filmLikes.subList(from, Math.min(from + batchSize, filmLikes.size()));
+            try {
+                publish(write(chunk, liked), liked);
+            } catch (DataAccessException e) {
+                log.warn("Пачка лайков не записана ({}), пишем по одному.", e.getMessage());
+                chunk.forEach(filmLike -> writeOne(filmLike, liked));
+            }
+        }
+    }
+
+    private void writeOne(FilmLike filmLike, boolean liked) {
+        try {
+            publish(write(List.of(filmLike), liked), liked);
+            lock.lock();
+            try {
+                failedAttempts.remove(filmLike);
+            } finally {
+                lock.unlock();
+            }
+        } catch (DataAccessException e) {
+            failedCounter.increment();
+            retryLater(filmLike, liked, e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает неудавшуюся операцию в буфер, если для пары ещё не пришла более новая операция:
+     * тогда повторять старую незачем. Возврат не ждёт свободного места, чтобы не блокировать запись пачки.
+     */
+    private void retryLater(FilmLike filmLike, boolean liked, String reason) {
+        lock.lock();
+        try {
+            if (pending.containsKey(filmLike)) {
+                failedAttempts.remove(filmLike);
+                return;
+            }
+            int attempts = failedAttempts.merge(filmLike, 1, Integer::sum);
+            if (attempts < MAX_WRITE_ATTEMPTS) {
+                log.warn("Не удалось записать лайк {} (попытка {}): {}", filmLike, attempts, reason);
+                pending.put(filmLike, liked);
+                return;
+            }
+            failedAttempts.remove(filmLike);
+        } finally {
+            lock.unlock();
+        }
+        deadLetter(filmLike, liked, reason);
+    }
+
+    private void deadLetter(FilmLike filmLike, boolean liked, String reason) {
+        deadLetteredCounter.increment();
+        log.error("Операция с лайком отброшена: {}, лайк {}: {}", filmLike, liked, reason);
+    }
+
+    private List<FilmLike> write(List<FilmLike> chunk, boolean liked) {
+        return liked
+                ? filmLikesDbStorage.addLikesIfNotExist(chunk)
+                : filmLikesDbStorage.deleteLikesIfExist(chunk);
+    }
+
+    private void publish(List<FilmLike> changedLikes, boolean liked) {
+        changedLikes.forEach(filmLike ->
+                eventPublisher.publishEvent(
+                        new FilmLikeEvent(filmLike.getFilmId(), filmLike.getUserId(), liked, filmLike.getLikedAt())));
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Запись объектов в формате NDJSON: один JSON-документ на строку.
+ * После каждой порции поток сбрасывается, чтобы клиент получал данные по мере выгрузки.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final ObjectMapper objectMapper;
+
+    public void writeLines(OutputStream out, Collection<?> values) {
+        try {
+            for (Object value : values) {
+                out.write(objectMapper.writeValueAsBytes(value));
+                out.write(LINE_SEPARATOR);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+
+/**
+ * Сжатое множество ID друзей в стиле Roaring: старшие биты ID задают контейнер, младшие 16 бит
+ * хранятся в нём либо отсортированным массивом char (до 4096 значений), либо битовой картой
+ * на 65536 бит. Изменение копирует только затронутый контейнер.
+ */
+final class RoaringFriendSet implements FriendSet {
+    private static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private final long[] keys;
+    private final Container[] containers;
+    private final int size;
+
+    private RoaringFriendSet(long[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    static RoaringFriendSet of(long[] sortedIds) {
+        long[] keys = new long[sortedIds.length];
+        Container[] containers = new Container[sortedIds.length];
+        int containersCount = 0;
+        int start = 0;
+        while (start < sortedIds.length) {
+            long key = highBits(sortedIds[start]);
+            int end = start;
+            while (end < sortedIds.length && highBits(sortedIds[end]) == key) {
+                end++;
+            }
+            char[] values = new char[end - start];
+            for (int idx = start; idx < end; idx++) {
+                values[idx - start] = lowBits(sortedIds[idx]);
+            }
+            keys[containersCount] = key;
+            containers[containersCount] = ArrayContainer.ofSorted(values);
+            containersCount++;
+            start = end;
+        }
+        return new RoaringFriendSet(Arrays.copyOf(keys, containersCount),
+                Arrays.copyOf(containers, containersCount), sortedIds.length);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        int idx = Arrays.binarySearch(keys, highBits(id));
+        return idx >= 0 && containers[idx].contains(lowBits(id));
+    }
+
+    @Override
+    public FriendSet with(long id) {
+        long key = highBits(id);
+        int idx = Arrays.binarySearch(keys, key);
+        if (idx >= 0) {
+            Container container = containers[idx];
+            Container updated = container.add(lowBits(id));
+            if (updated == container) {
+                return this;
+            }
+            Container[] updatedContainers = containers.clone();
+            updatedContainers[idx] = updated;
+            return new RoaringFriendSet(keys, updatedContainers, size + 1);
+        }
+
+        int insertAt = -idx - 1;
+        long[] updatedKeys = new long[keys.length + 1];
+        Container[] updatedContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, updatedKeys, 0, insertAt);
+        System.arraycopy(containers, 0, updatedContainers, 0, insertAt);
+        updatedKeys[insertAt] = key;
+        updatedContainers[insertAt] = new ArrayContainer(new char[]{lowBits(id)});
+        System.arraycopy(keys, insertAt, updatedKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(containers, insertAt, updatedContainers, insertAt + 1, containers.length - insertAt);
+        return new RoaringFriendSet(updatedKeys, updatedContainers, size + 1);
+    }
+
+    @Override
+    public FriendSet without(long id) {
+        int idx = Arrays.binarySearch(keys, highBits(id));
+        if (idx < 0 || containers[idx].contains(lowBits(id)) == false) {
+            return this;
+        }
+        if (size - 1 <= BITMAP_THRESHOLD / 2) {
+            long[] ids = toArray();
+            long[] updated = new long[ids.length - 1];
+            int removeAt = Arrays.binarySearch(ids, id);
+            System.arraycopy(ids, 0, updated, 0, removeAt);
+            System.arraycopy(ids, removeAt + 1, updated, removeAt, ids.length - removeAt - 1);
+            return new SortedArrayFriendSet(updated);
+        }
+
+        Container updated = containers[idx].remove(lowBits(id));
+        if (updated != null) {
+            Container[] updatedContainers = containers.clone();
+            updatedContainers[idx] = updated;
+            return new RoaringFriendSet(keys, updatedContainers, size - 1);
+        }
+        long[] updatedKeys = new long[keys.length - 1];
+        Container[] updatedContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, updatedKeys, 0, idx);
+        System.arraycopy(containers, 0, updatedContainers, 0, idx);
+        System.arraycopy(keys, idx + 1, updatedKeys, idx, keys.length - idx - 1);
+        System.arraycopy(containers, idx + 1, updatedContainers, idx, containers.length - idx - 1);
+        return new RoaringFriendSet(updatedKeys, updatedContainers, size - 1);
+    }
+
+    @Override
+    public long[] toArray() {
+        long[] ids = new long[size];
+        copyTo(ids, 0, size);
+        return ids;
+    }
+
+    @Override
+    public int copyTo(long[] target, int offset, int maxCount) {
+        int copied = 0;
+        for (int idx = 0; idx < containers.length && copied < maxCount; idx++) {
+            copied += containers[idx].copyTo(keys[idx] << 16, target, offset + copied, maxCount - copied);
+        }
+        return copied;
+    }
+
+    @Override
+    public FriendSet and(FriendSet other) {
+        if (other instanceof RoaringFriendSet roaring) {
+            long[] resultKeys = new long[Math.min(keys.length, roaring.keys.length)];
+            Container[] resultContainers = new Container[resultKeys.length];
+            int count = 0;
+            int resultSize = 0;
+            int i = 0;
+            int j = 0;
+            while (i < keys.length && j < roaring.keys.length) {
+                if (keys[i] < roaring.keys[j]) {
+                    i++;
+                } else if (keys[i] > roaring.keys[j]) {
+                    j++;
+                } else {
+                    Container common = containers[i].and(roaring.containers[j]);
+                    if (common != null) {
+                        resultKeys[count] = keys[i];
+                        resultContainers[count] = common;
+                        resultSize += common.cardinality();
+                        count++;
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            RoaringFriendSet result = new RoaringFriendSet(Arrays.copyOf(resultKeys, count),
+                    Arrays.copyOf(resultContainers, count), resultSize);
+            return resultSize > BITMAP_THRESHOLD ? result : new SortedArrayFriendSet(result.toArray());
+        }
+
+        long[] otherIds = other.toArray();
+        long[] common = new long[otherIds.length];
+        int count = 0;
+        for (long id : otherIds) {
+            if (contains(id)) {
+                common[count++] = id;
+            }
+        }
+        return new SortedArrayFriendSet(Arrays.copyOf(common, count));
+    }
+
+    @Override
+    public FriendSet or(FriendSet other) {
+        RoaringFriendSet roaring = other instanceof RoaringFriendSet otherRoaring
+                ? otherRoaring
+                : of(other.toArray());
+        long[] resultKeys = new long[keys.length + roaring.keys.length];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int count = 0;
+        int resultSize = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < roaring.keys.length) {
+            Container container;
+            if (j == roaring.keys.length || (i < keys.length && keys[i] < roaring.keys[j])) {
+                resultKeys[count] = keys[i];
+                container = containers[i++];
+            } else if (i == keys.length || keys[i] > roaring.keys[j]) {
+                resultKeys[count] = roaring.keys[j];
+                container = roaring.containers[j++];
+            } else {
+                resultKeys[count] = keys[i];
+                container = containers[i++].or(roaring.containers[j++]);
+            }
+            resultContainers[count++] = container;
+            resultSize += container.cardinality();
+        }
+        return new RoaringFriendSet(Arrays.copyOf(resultKeys, count), Arrays.copyOf(resultContainers, count),
+                resultSize);
+    }
+
+    @Override
+    public int andCardinality(FriendSet other) {
+        if (other instanceof RoaringFriendSet roaring) {
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < keys.length && j < roaring.keys.length) {
+                if (keys[i] < roaring.keys[j]) {
+                    i++;
+                } else if (keys[i] > roaring.keys[j]) {
+                    j++;
+                } else {
+                    count += containers[i].andCardinality(roaring.containers[j]);
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+
+        int count = 0;
+        for (long id : other.toArray()) {
+            if (contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long highBits(long id) {
+        return id >>> 16;
+    }
+
+    private static char lowBits(long id) {
+        return (char) id;
+    }
+
+    private interface Container {
+        int cardinality();
+
+        boolean contains(char value);
+
+        Container add(char value);
+
+        /**
+         * Возвращает null, если после удаления контейнер пуст.
+         */
+        Container remove(char value);
+
+        /**
+         * Возвращает null, если пересечение пусто.
+         */
+        Container and(Container other);
+
+        Container or(Container other);
+
+        int andCardinality(Container other);
+
+        int copyTo(long base, long[] target, int offset, int maxCount);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        static Container ofSorted(char[] values) {
+            return values.length > ARRAY_CONTAINER_MAX_SIZE
+                    ? BitmapContainer.of(values)
+                    : new ArrayContainer(values);
+        }
+
+        @Override
+        public int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            int idx = Arrays.binarySearch(values, value);
+            if (idx >= 0) {
+                return this;
+            }
+            int insertAt = -idx - 1;
+            char[] updated = new char[values.length + 1];
+            System.arraycopy(values, 0, updated, 0, insertAt);
+            updated[insertAt] = value;
+            System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+            return ofSorted(updated);
+        }
+
+        @Override
+        public Container remove(char value) {
+            int idx = Arrays.binarySearch(values, value);
+            if (idx < 0) {
+                return this;
+            }
+            if (values.length == 1) {
+                return null;
+            }
+            char[] updated = new char[values.length - 1];
+            System.arraycopy(values, 0, updated, 0, idx);
+            System.arraycopy(values, idx + 1, updated, idx, values.length - idx - 1);
+            return new ArrayContainer(updated);
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] common = new char[values.length];
+            int count = 0;
+            for (char value : values) {
+                if (other.contains(value)) {
+                    common[count++] = value;
+                }
+            }
+            return count == 0 ? null : new ArrayContainer(Arrays.copyOf(common, count));
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            char[] otherValues = ((ArrayContainer) other).values;
+            char[] union = new char[values.length + otherValues.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < values.length || j < otherValues.length) {
+                if (j == otherValues.length || (i < values.length && values[i] < otherValues[j])) {
+                    union[count++] = values[i++];
+                } else if (i == values.length || values[i] > otherValues[j]) {
+                    union[count++] = otherValues[j++];
+                } else {
+                    union[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return ofSorted(Arrays.copyOf(union, count));
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            int count = 0;
+            for (char value : values) {
+                if (other.contains(value)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public int copyTo(long base, long[] target, int offset, int maxCount) {
+            int count = Math.min(maxCount, values.length);
+            for (int idx = 0; idx < count; idx++) {
+                target[offset + idx] = base | values[idx];
+            }
+            return count;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private final int cardinality;
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitmapContainer of(char[] values) {
+            long[] words = new long[BITMAP_WORDS];
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+            return new BitmapContainer(words, values.length);
+        }
+
+        private static Container ofWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality == 0) {
+                return null;
+            }
+            if (cardinality > ARRAY_CONTAINER_MAX_SIZE) {
+                return new BitmapContainer(words, cardinality);
+            }
+            char[] values = new char[cardinality];
+            new BitmapContainer(words, cardinality).copyTo(values);
+            return new ArrayContainer(values);
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            if (contains(value)) {
+                return this;
+            }
+            long[] updated = words.clone();
+            updated[value >>> 6] |= 1L << value;
+            return new BitmapContainer(updated, cardinality + 1);
+        }
+
+        @Override
+        public Container remove(char value) {
+            if (contains(value) == false) {
+                return this;
+            }
+            long[] updated = words.clone();
+            updated[value >>> 6] &= ~(1L << value);
+            if (cardinality - 1 > ARRAY_CONTAINER_MAX_SIZE) {
+                return new BitmapContainer(updated, cardinality - 1);
+            }
+            return ofWords(updated);
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] common = new long[BITMAP_WORDS];
+            for (int idx = 0; idx < BITMAP_WORDS; idx++) {
+                common[idx] = words[idx] & otherWords[idx];
+            }
+            return ofWords(common);
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] union = words.clone();
+            if (other instanceof BitmapContainer bitmap) {
+                for (int idx = 0; idx < BITMAP_WORDS; idx++) {
+                    union[idx] |= bitmap.words[idx];
+                }
+            } else {
+                for (char value : ((ArrayContainer) other).values) {
+                    union[value >>> 6] |= 1L << value;
+                }
+            }
+            return ofWords(union);
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int idx = 0; idx < BITMAP_WORDS; idx++) {
+                count += Long.bitCount(words[idx] & otherWords[idx]);
+            }
+            return count;
+        }
+
+        @Override
+        public int copyTo(long base, long[] target, int offset, int maxCount) {
+            int count = 0;
+            for (int idx = 0; idx < BITMAP_WORDS && count < maxCount; idx++) {
+                long word = words[idx];
+                while (word != 0 && count < maxCount) {
+                    target[offset + count++] = base | ((long) idx << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return count;
+        }
+
+        private void copyTo(char[] target) {
+            int count = 0;
+            for (int idx = 0; idx < BITMAP_WORDS; idx++) {
+                long word = words[idx];
+                while (word != 0) {
+                    target[count++] = (char) (idx << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.Arrays;
+
+/**
+ * Множество ID друзей в виде отсортированного массива для пользователей с небольшим числом друзей.
+ */
+final class SortedArrayFriendSet implements FriendSet {
+    static final SortedArrayFriendSet EMPTY = new SortedArrayFriendSet(new long[0]);
+
+    private final long[] ids;
+
+    SortedArrayFriendSet(long[] ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    @Override
+    public FriendSet with(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        if (idx >= 0) {
+            return this;
+        }
+        int insertAt = -idx - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = id;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        return FriendSet.of(updated);
+    }
+
+    @Override
+    public FriendSet without(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        if (idx < 0) {
+            return this;
+        }
+        if (ids.length == 1) {
+            return EMPTY;
+        }
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, idx);
+        System.arraycopy(ids, idx + 1, updated, idx, ids.length - idx - 1);
+        return new SortedArrayFriendSet(updated);
+    }
+
+    @Override
+    public long[] toArray() {
+        return ids;
+    }
+
+    @Override
+    public int copyTo(long[] target, int offset, int maxCount) {
+        int count = Math.min(maxCount, ids.length);
+        System.arraycopy(ids, 0, target, offset, count);
+        return count;
+    }
+
+    @Override
+    public FriendSet and(FriendSet other) {
+        if (other instanceof RoaringFriendSet) {
+            return other.and(this);
+        }
+        long[] otherIds = other.toArray();
+        long[] common = new long[Math.min(ids.length, otherIds.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids.length && j < otherIds.length) {
+            if (ids[i] < otherIds[j]) {
+                i++;
+            } else if (ids[i] > otherIds[j]) {
+                j++;
+            } else {
+                common[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return new SortedArrayFriendSet(count == common.length ? common : Arrays.copyOf(common, count));
+    }
+
+    @Override
+    public FriendSet or(FriendSet other) {
+        if (other instanceof RoaringFriendSet) {
+            return other.or(this);
+        }
+        long[] otherIds = other.toArray();
+        long[] union = new long[ids.length + otherIds.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids.length || j < otherIds.length) {
+            if (j == otherIds.length || (i < ids.length && ids[i] < otherIds[j])) {
+                union[count++] = ids[i++];
+            } else if (i == ids.length || ids[i] > otherIds[j]) {
+                union[count++] = otherIds[j++];
+            } else {
+                union[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return FriendSet.of(count == union.length ? union : Arrays.copyOf(union, count));
+    }
+
+    @Override
+    public int andCardinality(FriendSet other) {
+        if (other instanceof RoaringFriendSet) {
+            return other.andCardinality(this);
+        }
+        long[] otherIds = other.toArray();
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids.length && j < otherIds.length) {
+            if (ids[i] < otherIds[j]) {
+                i++;
+            } else if (ids[i] > otherIds[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбивает текст на термы для полнотекстового поиска: слова из букв и цифр в нижнем регистре,
+ * «ё» приводится к «е», окончания русских и английских слов отсекаются облегчённым стеммером.
+ * Документы и запросы проходят через один и тот же токенизатор, поэтому важна согласованность
+ * основ, а не лингвистическая точность.
+ */
+final class TextTokenizer {
+    private static final int MIN_RUSSIAN_STEM_LENGTH = 3;
+    private static final int MIN_ENGLISH_STEM_LENGTH = 3;
+    /**
+     * Окончания упорядочены по убыванию длины: отсекается самое длинное подходящее.
+     */
+    private static final String[] RUSSIAN_ENDINGS = {
+            "ившись", "ывшись", "ость", "ости", "иями", "ями", "ами", "ией", "ого", "его", "ому", "ему",
+            "ыми", "ими", "ать", "ять", "ить", "еть", "ешь", "ила", "ило", "или", "ыла", "ыло", "ыли",
+            "ает", "яет", "ует", "ся", "сь", "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ые", "ие", "ую",
+            "юю", "ах", "ях", "ов", "ев", "ей", "ам", "ям", "ом", "ем", "ию", "ия", "ье", "ья", "ут",
+            "ют", "ит", "ат", "ят", "ет", "ил", "ыл", "ы", "и", "а", "я", "о", "е", "у", "ю", "ь", "й"
+    };
+
+    private TextTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int idx = 0; idx <= normalized.length(); idx++) {
+            boolean wordChar = idx < normalized.length() && Character.isLetterOrDigit(normalized.charAt(idx));
+            if (wordChar && start < 0) {
+                start = idx;
+            } else if (wordChar == false && start >= 0) {
+                tokens.add(stem(normalized.substring(start, idx)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        if (isCyrillic(word)) {
+            return stemRussian(word);
+        }
+        return stemEnglish(word);
+    }
+
+    private static String stemRussian(String word) {
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_RUSSIAN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static String stemEnglish(String word) {
+        if (word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("ies") && word.length() - 3 >= MIN_ENGLISH_STEM_LENGTH - 1) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        String stem = stripEnglishSuffix(word, "ing");
+        if (stem == null) {
+            stem = stripEnglishSuffix(word, "edly");
+        }
+        if (stem == null) {
+            stem = stripEnglishSuffix(word, "ed");
+        }
+        if (stem != null) {
+            return undouble(stem);
+        }
+        stem = stripEnglishSuffix(word, "ly");
+        if (stem != null) {
+            return stem;
+        }
+        if (word.endsWith("s") && word.endsWith("ss") == false && word.endsWith("us") == false
+                && word.length() - 1 >= MIN_ENGLISH_STEM_LENGTH) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    /**
+     * «runn» → «run», «stopp» → «stop»; удвоенные l, s и z сохраняются, как в стеммере Портера.
+     */
+    private static String undouble(String stem) {
+        int length = stem.length();
+        char last = stem.charAt(length - 1);
+        if (last == stem.charAt(length - 2) && "aeiouylsz".indexOf(last) < 0) {
+            return stem.substring(0, length - 1);
+        }
+        return stem;
+    }
+
+    /**
+     * Отсекает суффикс, только если в оставшейся основе есть гласная: «played» → «play», но «sing» остаётся.
+     */
+    private static String stripEnglishSuffix(String word, String suffix) {
+        if (word.endsWith(suffix) == false || word.length() - suffix.length() < MIN_ENGLISH_STEM_LENGTH) {
+            return null;
+        }
+        String stem = word.substring(0, word.length() - suffix.length());
+        for (int idx = 0; idx < stem.length(); idx++) {
+            if ("aeiouy".indexOf(stem.charAt(idx)) >= 0) {
+                return stem;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCyrillic(String word) {
+        for (int idx = 0; idx < word.length(); idx++) {
+            if (Character.UnicodeBlock.of(word.charAt(idx)) == Character.UnicodeBlock.CYRILLIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
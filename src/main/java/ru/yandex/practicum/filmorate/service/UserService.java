@@ -2,8 +2,15 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
 import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+import ru.yandex.practicum.filmorate.dto.BatchItemResult;
+import ru.yandex.practicum.filmorate.dto.BatchItemStatus;
+import ru.yandex.practicum.filmorate.dto.ByIdsResponse;
+import ru.yandex.practicum.filmorate.dto.FriendshipBatchItem;
 import ru.yandex.practicum.filmorate.dto.NewUserRequest;
 import ru.yandex.practicum.filmorate.dto.UpdateUserRequest;
 import ru.yandex.practicum.filmorate.dto.UserDto;
@@ -11,6 +18,7 @@ import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -18,8 +26,16 @@ import java.util.stream.Collectors;
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_USERS_PAGE_SIZE = 1000;
+    private static final int EXPORT_CHUNK_SIZE = 500;
     private final UserStorage userStorage;
     private final FriendshipDbStorage friendshipDbStorage;
+    private final FilmLikesDbStorage filmLikesDbStorage;
+    private final FriendshipGraph friendshipGraph;
+    private final FriendSuggestions friendSuggestions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NdjsonWriter ndjsonWriter;
 
     public UserDto create(NewUserRequest newUserRequest) {
         log.info("Создание нового пользователя: {}.", newUserRequest);
@@ -50,7 +66,7 @@ public class UserService {
         updatingUser = UserMapper.updateUserFields(updatingUser, updateUserRequest);
         userStorage.update(updatingUser);
 
-        return UserMapper.mapToUserDto(updatingUser);
+        return toUserDto(updatingUser);
     }
 
     public void delete(Long userId) {
@@ -63,16 +79,36 @@ public class UserService {
     public UserDto findById(Long userId) {
         log.info("Поиск пользователя ID {}.", userId);
         User user = getUserOrThrow(userId);
-        return UserMapper.mapToUserDto(user);
+        return toUserDto(user);
     }
 
-    public List<UserDto> findAll() {
-        log.info("Получение списка всех пользователей.");
-        List<User> users = userStorage.findAll();
+    /**
+     * Страница пользователей по курсору. Без limit отдаётся не больше MAX_USERS_PAGE_SIZE записей,
+     * чтобы ответ не рос вместе с таблицей.
+     */
+    public List<UserDto> findAll(Long afterId, Integer limit) {
+        log.info("Получение страницы пользователей после ID {}, размер {}.", afterId, limit);
+        int pageSize = limit != null ? Math.min(limit, MAX_USERS_PAGE_SIZE) : MAX_USERS_PAGE_SIZE;
+        List<User> users = userStorage.findPage(pageAfter(afterId), pageSize);
 
-        return users.stream()
-                .map(UserMapper::mapToUserDto)
-                .collect(Collectors.toList());
+        return toUsersDto(users);
+    }
+
+    /**
+     * Выгрузка всех пользователей в NDJSON. Пользователи читаются курсором, счётчики
+     * подгружаются порциями по EXPORT_CHUNK_SIZE, поэтому потребление памяти не зависит от размера таблицы.
+     */
+    public void exportUsers(OutputStream out) {
+        log.info("Выгрузка всех пользователей.");
+        List<User> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        userStorage.forEach(user -> {
+            chunk.add(user);
+            if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                ndjsonWriter.writeLines(out, toUsersDto(chunk));
+                chunk.clear();
+            }
+        });
+        ndjsonWriter.writeLines(out, toUsersDto(chunk));
     }
 
     public void checkUserExists(Long userId) {
@@ -81,6 +117,18 @@ public class UserService {
         }
     }
 
+    public Set<Long> findExistingUsersIds(Collection<Long> usersIds) {
+        return userStorage.findExistingIds(usersIds);
+    }
+
+    /**
+     * Версия пользователя для ETag: один запрос по первичному ключу, без подсчёта друзей и лайков.
+     */
+    public long getUserVersion(Long userId) {
+        return userStorage.findVersion(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id = %d не найден.", userId)));
+    }
+
     private User getUserOrThrow(Long id) {
         return userStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id = %d не найден.", id)));
@@ -97,35 +145,189 @@ public class UserService {
 
         checkUserExists(userId);
         checkUserExists(friendId);
-        friendshipDbStorage.addFriend(userId, friendId);
+        if (friendshipDbStorage.addFriend(userId, friendId)) {
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, true));
+        }
     }
 
     public void removeFriend(Long userId, Long friendId) {
         checkUserExists(userId);
         checkUserExists(friendId);
-        friendshipDbStorage.removeFriend(userId, friendId);
+        if (friendshipDbStorage.removeFriend(userId, friendId)) {
+            eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, false));
+        }
+    }
+
+    /**
+     * Применяет пачку добавлений/удалений друзей: все ID проверяются одним запросом, изменения пишутся
+     * через batchUpdate. Повторное добавление существующей дружбы не считается ошибкой.
+     */
+    @Transactional
+    public List<BatchItemResult> applyFriendshipsBatch(List<FriendshipBatchItem> items) {
+        log.info("Пакетное изменение друзей: {} операций.", items.size());
+        BatchItemResult[] results = new BatchItemResult[items.size()];
+
+        Set<Long> usersIds = new HashSet<>();
+        for (FriendshipBatchItem item : items) {
+            if (isValidFriendshipBatchItem(item)) {
+                usersIds.add(item.getUserId());
+                usersIds.add(item.getFriendId());
+            }
+        }
+        Set<Long> existingUsersIds = userStorage.findExistingIds(usersIds);
+
+        Map<Friendship, Integer> additions = new LinkedHashMap<>();
+        Map<Friendship, Integer> removals = new LinkedHashMap<>();
+        for (int idx = 0; idx < items.size(); idx++) {
+            FriendshipBatchItem item = items.get(idx);
+            if (isValidFriendshipBatchItem(item) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.INVALID,
+                        "Нужно указать разные положительные userId, friendId и op (ADD или REMOVE).");
+            } else if (existingUsersIds.contains(item.getUserId()) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.NOT_FOUND,
+                        String.format("Пользователь с id = %d не найден.", item.getUserId()));
+            } else if (existingUsersIds.contains(item.getFriendId()) == false) {
+                results[idx] = new BatchItemResult(idx, BatchItemStatus.NOT_FOUND,
+                        String.format("Пользователь с id = %d не найден.", item.getFriendId()));
+            } else {
+                Friendship friendship = new Friendship(item.getUserId(), item.getFriendId());
+                if (additions.containsKey(friendship) || removals.containsKey(friendship)) {
+                    results[idx] = new BatchItemResult(idx, BatchItemStatus.DUPLICATE,
+                            "Пара пользователь/друг уже встречалась в пачке.");
+                } else {
+                    (item.getOp() == FriendshipOperation.ADD ? additions : removals).put(friendship, idx);
+                    results[idx] = BatchItemResult.of(idx, BatchItemStatus.UNCHANGED);
+                }
+            }
+        }
+
+        for (Friendship friendship : friendshipDbStorage.addFriendsIfNotExist(List.copyOf(additions.keySet()))) {
+            int idx = additions.get(friendship);
+            results[idx] = BatchItemResult.of(idx, BatchItemStatus.APPLIED);
+            eventPublisher.publishEvent(new FriendshipChangedEvent(friendship.getUserId(), friendship.getFriendId(), true));
+        }
+        for (Friendship friendship : friendshipDbStorage.removeFriendsIfExist(List.copyOf(removals.keySet()))) {
+            int idx = removals.get(friendship);
+            results[idx] = BatchItemResult.of(idx, BatchItemStatus.APPLIED);
+            eventPublisher.publishEvent(new FriendshipChangedEvent(friendship.getUserId(), friendship.getFriendId(), false));
+        }
+        return Arrays.asList(results);
+    }
+
+    private static boolean isValidFriendshipBatchItem(FriendshipBatchItem item) {
+        return item != null
+                && item.getUserId() != null && item.getUserId() > 0
+                && item.getFriendId() != null && item.getFriendId() > 0
+                && item.getUserId().equals(item.getFriendId()) == false
+                && item.getOp() != null;
     }
 
     public List<UserDto> getUserFriends(Long userId) {
         log.info("Получение списка друзей пользователя ID {}.", userId);
         checkUserExists(userId);
-        List<User> userFriends = userStorage.findBySeveralIds(friendshipDbStorage.getFriendsIdsOfUser(userId));
-        userFriends.sort(Comparator.comparing(User::getId));
+        return findUsersDtoByIds(friendshipGraph.getFriendsIds(userId));
+    }
 
-        return userFriends.stream()
-                .map(UserMapper::mapToUserDto)
-                .collect(Collectors.toList());
+    /**
+     * Страница друзей по курсору: отбор и сортировка выполняются в БД, в память попадает только limit записей.
+     */
+    public List<UserDto> getUserFriendsPage(Long userId, Long afterId, Integer limit) {
+        log.info("Получение страницы друзей пользователя ID {} после ID {}, размер {}.", userId, afterId, limit);
+        checkUserExists(userId);
+        return toUsersDto(userStorage.findFriendsPage(userId, pageAfter(afterId), pageLimit(limit)));
+    }
+
+    public List<UserDto> getFollowersPage(Long userId, Long afterId, Integer limit) {
+        log.info("Получение страницы подписчиков пользователя ID {} после ID {}, размер {}.", userId, afterId, limit);
+        checkUserExists(userId);
+        return toUsersDto(userStorage.findFollowersPage(userId, pageAfter(afterId), pageLimit(limit)));
+    }
+
+    public List<UserDto> getCommonFriendsPage(Long userId, Long otherUserId, Long afterId, Integer limit) {
+        checkUserExists(userId);
+        checkUserExists(otherUserId);
+        return toUsersDto(userStorage.findCommonFriendsPage(userId, otherUserId, pageAfter(afterId), pageLimit(limit)));
+    }
+
+    private static long pageAfter(Long afterId) {
+        return afterId != null ? afterId : 0;
+    }
+
+    private static int pageLimit(Integer limit) {
+        return limit != null ? limit : DEFAULT_PAGE_SIZE;
     }
 
     public List<UserDto> getCommonFriends(Long userId, Long otherUserId) {
         checkUserExists(userId);
         checkUserExists(otherUserId);
-        List<User> commonFriends = userStorage.findBySeveralIds(
-                friendshipDbStorage.getCommonFriends(userId, otherUserId)
-        );
+        return findUsersDtoByIds(friendshipGraph.getCommonFriendsIds(userId, otherUserId));
+    }
 
-        return commonFriends.stream()
-                .map(UserMapper::mapToUserDto)
+    public List<UserDto> getFriendSuggestions(Long userId, Integer limit) {
+        log.info("Получение {} рекомендаций друзей для пользователя ID {}.", limit, userId);
+        checkUserExists(userId);
+        List<Long> suggestedIds = friendSuggestions.getSuggestions(userId, limit).stream()
+                .map(FriendSuggestions.Suggestion::userId)
+                .toList();
+        if (suggestedIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, User> users = userStorage.findBySeveralIds(suggestedIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        return toUsersDto(suggestedIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Пользователи по списку ID в порядке запроса: пользователи и оба счётчика читаются по одному запросу
+     * на всю пачку. Повторы ID отбрасываются, ненайденные ID возвращаются отдельно.
+     */
+    public ByIdsResponse<UserDto> findByIds(List<Long> usersIds) {
+        log.info("Получение пользователей по списку ID: {}.", usersIds);
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(usersIds));
+        Map<Long, User> users = userStorage.findBySeveralIds(distinctIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        List<UserDto> usersDto = toUsersDto(distinctIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList());
+        List<Long> missingIds = distinctIds.stream()
+                .filter(userId -> users.containsKey(userId) == false)
+                .toList();
+        return new ByIdsResponse<>(usersDto, missingIds);
+    }
+
+    private List<UserDto> findUsersDtoByIds(long[] usersIds) {
+        if (usersIds.length == 0) {
+            return List.of();
+        }
+        return toUsersDto(userStorage.findBySeveralIds(Arrays.stream(usersIds).boxed().toList()));
+    }
+
+    private UserDto toUserDto(User user) {
+        return toUsersDto(List.of(user)).getFirst();
+    }
+
+    /**
+     * Счётчики друзей и поставленных лайков добираются двумя групповыми запросами на всю страницу,
+     * а не отдельным запросом на каждого пользователя.
+     */
+    private List<UserDto> toUsersDto(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> usersIds = users.stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Integer> friendsCounts = friendshipDbStorage.getFriendsCountByUsersIds(usersIds);
+        Map<Long, Integer> likesGivenCounts = filmLikesDbStorage.getLikesGivenCountByUsersIds(usersIds);
+        return users.stream()
+                .map(user -> UserMapper.mapToUserDto(user,
+                        friendsCounts.getOrDefault(user.getId(), 0),
+                        likesGivenCounts.getOrDefault(user.getId(), 0)))
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,14 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(255) NOT NULL UNIQUE,
     login VARCHAR(255) NOT NULL,
     name VARCHAR(255) NOT NULL,
-    birthday DATE NOT NULL
+    birthday DATE NOT NULL,
+    followers_count INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
+ALTER TABLE users ADD COLUMN IF NOT EXISTS followers_count INT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS friendship (
     user_id BIGINT NOT NULL,
     friend_id BIGINT NOT NULL,
@@ -14,6 +19,8 @@ CREATE TABLE IF NOT EXISTS friendship (
     CONSTRAINT fk_friendship_user2 FOREIGN KEY (friend_id) REFERENCES users(id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_friendship_friend_id ON friendship (friend_id, user_id);
+
 CREATE TABLE IF NOT EXISTS rating_mpaa (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR(5) NOT NULL
@@ -31,9 +38,14 @@ CREATE TABLE IF NOT EXISTS films (
     release_date DATE NOT NULL,
     duration INT NOT NULL,
     rating_mpaa_id BIGINT NOT NULL,
+    likes_count INT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_film_rating_mpaa FOREIGN KEY (rating_mpaa_id) REFERENCES rating_mpaa(id)
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INT NOT NULL DEFAULT 0;
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS film_genres (
     film_id BIGINT NOT NULL,
     genre_id BIGINT NOT NULL,
@@ -45,8 +57,15 @@ CREATE TABLE IF NOT EXISTS film_genres (
 CREATE TABLE IF NOT EXISTS film_likes (
     film_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
+    liked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (film_id, user_id),
     CONSTRAINT fk_film_likes_films FOREIGN KEY (film_id) REFERENCES films(id),
     CONSTRAINT fk_film_likes_users FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
+-- Лайки, поставленные до появления liked_at, датируются началом эпохи, чтобы не попасть в /films/trending.
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP NOT NULL DEFAULT TIMESTAMP '1970-01-01 00:00:00';
+ALTER TABLE film_likes ALTER COLUMN liked_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_film_likes_liked_at ON film_likes (liked_at);
+CREATE INDEX IF NOT EXISTS idx_film_likes_user_id ON film_likes (user_id, film_id);
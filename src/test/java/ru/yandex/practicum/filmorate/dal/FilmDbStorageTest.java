@@ -9,11 +9,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.GenreDto;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaDto;
 import ru.yandex.practicum.filmorate.dto.RatingMpaaId;
 import ru.yandex.practicum.filmorate.model.Film;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -60,6 +65,45 @@ class FilmDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты метода createAll()")
+    class CreateAllTests {
+        @Test
+        @DisplayName("Пакетное создание: должен вставить все фильмы и проставить ID по порядку")
+        void createAll_Should_Insert_Films_And_Set_Ids_Test() {
+            // given
+            List<Film> films = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                films.add(Film.builder()
+                        .name("Film " + i)
+                        .description("Description " + i)
+                        .releaseDate(LocalDate.of(2000 + i, 1, 1))
+                        .duration(100 + i)
+                        .mpa(new RatingMpaaId(1L))
+                        .build());
+            }
+            // when
+            List<Film> createdFilms = filmStorage.createAll(films);
+            // then
+            assertThat(createdFilms).extracting(Film::getId).doesNotContainNull().doesNotHaveDuplicates();
+            for (Film film : createdFilms) {
+                assertThat(filmStorage.findById(film.getId()))
+                        .get()
+                        .hasFieldOrPropertyWithValue("name", film.getName())
+                        .hasFieldOrPropertyWithValue("duration", film.getDuration());
+            }
+        }
+
+        @Test
+        @DisplayName("Пакетное создание пустого списка: не должен обращаться к БД")
+        void createAll_Should_Accept_Empty_List_Test() {
+            // given, when
+            List<Film> createdFilms = filmStorage.createAll(new ArrayList<>());
+            // then
+            assertThat(createdFilms).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Тесты метода update()")
     class UpdateTests {
@@ -180,6 +224,154 @@ class FilmDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты метода findDtoById()")
+    class FindDtoByIdTests {
+        @Test
+        @DisplayName("Фильм с жанрами: рейтинг, жанры и лайки собираются одним запросом")
+        void findDtoById_Should_Return_Hydrated_Film_Test() {
+            // given
+            Film film = filmStorage.create(Film.builder()
+                    .name("Heat")
+                    .description("Crime drama.")
+                    .releaseDate(LocalDate.of(1995, 12, 15))
+                    .duration(170)
+                    .mpa(new RatingMpaaId(4L))
+                    .build());
+            jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?), (?, ?)",
+                    film.getId(), 6L, film.getId(), 2L);
+            // when
+            Optional<FilmDto> found = filmStorage.findDtoById(film.getId());
+            // then
+            assertThat(found).isPresent();
+            FilmDto filmDto = found.get();
+            assertThat(filmDto)
+                    .hasFieldOrPropertyWithValue("name", "Heat")
+                    .hasFieldOrPropertyWithValue("duration", 170)
+                    .hasFieldOrPropertyWithValue("likesCount", 0);
+            assertThat(filmDto.getMpa()).isEqualTo(new RatingMpaaDto(4L, "R"));
+            assertThat(filmDto.getGenres())
+                    .containsExactly(new GenreDto(2L, "Драма"), new GenreDto(6L, "Боевик"));
+        }
+
+        @Test
+        @DisplayName("Фильм без жанров: возвращается пустой набор жанров")
+        void findDtoById_Should_Return_Empty_Genres_When_Film_Has_No_Genres_Test() {
+            // given
+            Film film = filmStorage.create(Film.builder()
+                    .name("Memento")
+                    .description("Thriller.")
+                    .releaseDate(LocalDate.of(2000, 9, 5))
+                    .duration(113)
+                    .mpa(new RatingMpaaId(4L))
+                    .build());
+            // when
+            Optional<FilmDto> found = filmStorage.findDtoById(film.getId());
+            // then
+            assertThat(found).isPresent();
+            assertThat(found.get().getGenres()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Несуществующий фильм: возвращается пустой Optional")
+        void findDtoById_Should_Return_Empty_Optional_For_Non_Exists_Id_Test() {
+            // given, when
+            Optional<FilmDto> found = filmStorage.findDtoById(Long.MAX_VALUE);
+            // then
+            assertThat(found).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты метода findVersion()")
+    class FindVersionTests {
+        @Test
+        @DisplayName("Версия фильма растёт при каждом обновлении")
+        void findVersion_Should_Increase_On_Update_Test() {
+            // given
+            Film film = filmStorage.create(Film.builder()
+                    .name("Heat")
+                    .description("Crime drama.")
+                    .releaseDate(LocalDate.of(1995, 12, 15))
+                    .duration(170)
+                    .mpa(new RatingMpaaId(4L))
+                    .build());
+            // when
+            film.setDuration(171);
+            filmStorage.update(film);
+            filmStorage.update(film);
+            // then
+            assertThat(filmStorage.findVersion(film.getId())).contains(2L);
+        }
+
+        @Test
+        @DisplayName("Для несуществующего фильма версии нет")
+        void findVersion_Should_Return_Empty_For_Non_Exists_Film_Test() {
+            // given, when, then
+            assertThat(filmStorage.findVersion(Long.MAX_VALUE)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты метода findPage()")
+    class FindPageTests {
+        @Test
+        @DisplayName("Страница фильмов начинается после курсора и ограничена limit")
+        void findPage_Should_Return_Films_After_Cursor_Limited_Test() {
+            // given
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ids.add(filmStorage.create(Film.builder()
+                        .name("Film " + i)
+                        .description("Description")
+                        .releaseDate(LocalDate.of(2000, 1, 1))
+                        .duration(100)
+                        .mpa(new RatingMpaaId(1L))
+                        .build()).getId());
+            }
+            // when
+            List<Film> firstPage = filmStorage.findPage(0, 2);
+            List<Film> secondPage = filmStorage.findPage(firstPage.getLast().getId(), 2);
+            // then
+            assertThat(firstPage).extracting(Film::getId).containsExactly(ids.get(0), ids.get(1));
+            assertThat(secondPage).extracting(Film::getId).containsExactly(ids.get(2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты метода forEach()")
+    class ForEachTests {
+        @Test
+        @DisplayName("Обход всех фильмов: должен передать каждую запись обработчику")
+        void forEach_Should_Visit_All_Films_Test() {
+            // given
+            Film film1 = Film.builder()
+                    .name("Alien")
+                    .description("Space horror.")
+                    .releaseDate(LocalDate.of(1979, 5, 25))
+                    .duration(117)
+                    .mpa(new RatingMpaaId(4L))
+                    .build();
+            Film film2 = Film.builder()
+                    .name("Aliens")
+                    .description("Space action.")
+                    .releaseDate(LocalDate.of(1986, 7, 18))
+                    .duration(137)
+                    .mpa(new RatingMpaaId(4L))
+                    .build();
+            filmStorage.create(film1);
+            filmStorage.create(film2);
+            List<Film> visited = new ArrayList<>();
+            // when
+            filmStorage.forEach(visited::add);
+            // then
+            assertThat(visited)
+                    .hasSize(2)
+                    .extracting(Film::getName)
+                    .containsExactly("Alien", "Aliens");
+        }
+    }
+
     @Nested
     @DisplayName("Тесты метода delete()")
     class DeleteTests {
@@ -306,4 +498,35 @@ class FilmDbStorageTest {
             assertThat(exists).isFalse();
         }
     }
+
+    @Nested
+    @DisplayName("Тесты метода findExistingIds()")
+    class FindExistingIdsTests {
+        @Test
+        @DisplayName("Проверка существования списка: должен вернуть только ID существующих фильмов")
+        void findExistingIds_Should_Return_Only_Existing_Ids_Test() {
+            // given
+            Film film = Film.builder()
+                    .name("Arrival")
+                    .description("Linguistic sci-fi.")
+                    .releaseDate(LocalDate.of(2016, 11, 11))
+                    .duration(116)
+                    .mpa(new RatingMpaaId(3L))
+                    .build();
+            Long filmId = filmStorage.create(film).getId();
+            // when
+            Set<Long> existing = filmStorage.findExistingIds(List.of(filmId, 666L));
+            // then
+            assertThat(existing).containsExactly(filmId);
+        }
+
+        @Test
+        @DisplayName("Проверка существования списка: должен корректно обработать пустой список ID")
+        void findExistingIds_Should_Handle_Empty_Id_List_Test() {
+            // given, when
+            Set<Long> existing = filmStorage.findExistingIds(List.of());
+            // then
+            assertThat(existing).isEmpty();
+        }
+    }
 }
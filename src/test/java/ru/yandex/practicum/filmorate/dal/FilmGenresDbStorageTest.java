@@ -85,6 +85,29 @@ class FilmGenresDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты пакетного метода insert()")
+    class InsertSeveralFilmsTests {
+        @Test
+        @DisplayName("Связывание нескольких фильмов с жанрами: должен вставить записи для каждого фильма")
+        void insert_Should_Insert_Genres_For_Several_Films_Test() {
+            // given, when
+            filmGenresStorage.insert(Map.of(filmId, genreIds, filmIdTo, genreIdsTo));
+            // then
+            assertThat(filmGenresStorage.getGenreIdsOfFilm(filmId)).containsExactlyInAnyOrderElementsOf(genreIds);
+            assertThat(filmGenresStorage.getGenreIdsOfFilm(filmIdTo)).containsExactlyInAnyOrderElementsOf(genreIdsTo);
+        }
+
+        @Test
+        @DisplayName("Фильмы без жанров: не должен вставлять записи")
+        void insert_Should_Skip_Films_Without_Genres_Test() {
+            // given, when
+            assertDoesNotThrow(() -> filmGenresStorage.insert(Map.of(filmId, Set.of())));
+            // then
+            assertThat(filmGenresStorage.getGenreIdsOfFilm(filmId)).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Тесты метода getGenresOfFilm()")
     class GetGenresOfFilmTests {
@@ -300,4 +323,23 @@ class FilmGenresDbStorageTest {
             assertThat(ids).isEmpty();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты метода getGenresIdsOfAllFilms()")
+    class GetGenresIdsOfAllFilmsTests {
+        @Test
+        @DisplayName("Получение жанров всех фильмов: должен сгруппировать ID жанров по фильмам")
+        void getGenresIdsOfAllFilms_Should_Group_Genres_By_Film_Test() {
+            // given
+            filmGenresStorage.insert(filmId, genreIds);
+            filmGenresStorage.insert(filmIdTo, Set.of(4L));
+            // when
+            Map<Long, Set<Long>> result = filmGenresStorage.getGenresIdsOfAllFilms();
+            // then
+            assertThat(result)
+                    .hasSize(2)
+                    .containsEntry(filmId, genreIds)
+                    .containsEntry(filmIdTo, Set.of(4L));
+        }
+    }
+}
@@ -7,9 +7,13 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.dto.RatingMpaaId;
+import ru.yandex.practicum.filmorate.model.AddLikeResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.LikeChange;
 import ru.yandex.practicum.filmorate.model.User;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import static org.assertj.core.api.Assertions.*;
 
@@ -73,6 +77,16 @@ class FilmLikesDbStorageTest {
         return userStorage.create(user).getId();
     }
 
+    private int likesCountOf(Long filmId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    private Map<Long, Integer> likesCountOfAllFilms() {
+        Map<Long, Integer> result = new HashMap<>();
+        storage.forEachLikesCount(result::put);
+        return result;
+    }
+
     @Nested
     @DisplayName("Тесты hasUserLikedFilm()")
     class HasUserLikedFilmTests {
@@ -81,7 +95,7 @@ class FilmLikesDbStorageTest {
         @DisplayName("Если пользователь поставил лайк — должно вернуть true")
         void hasUserLikedFilm_Should_Return_True_When_User_Liked_Film_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
             // when, then
             assertThat(storage.hasUserLikedFilm(filmId1, userId1)).isTrue();
         }
@@ -102,99 +116,95 @@ class FilmLikesDbStorageTest {
     }
 
     @Nested
-    @DisplayName("Тесты addLikeIfNotExists")
-    class AddLikeIfNotExistsTests {
+    @DisplayName("Тесты addLike() и deleteLike()")
+    class AddAndDeleteLikeTests {
 
         @Test
-        @DisplayName("Проверяем добавление лайка — должен вернуть true")
-        void addLikeIfNotExists_Should_Add_Like_And_Return_True_Test() {
-            // given, when
-            boolean added = storage.addLikeIfNotExists(filmId1, userId1);
-            // when, then
-            assertThat(added).isTrue();
+        @DisplayName("Проверяем добавление лайка — должен вернуть ADDED с новыми счётчиком и версией фильма")
+        void addLike_Should_Add_Like_And_Increment_Counter_Test() {
+            // given
+            long versionBefore = filmStorage.findVersion(filmId1).orElseThrow();
+            // when
+            AddLikeResult result = storage.addLike(filmId1, userId1, LocalDateTime.now());
+            // then
+            assertThat(result.getStatus()).isEqualTo(AddLikeResult.Status.ADDED);
+            assertThat(result.getChange().getLikesCount()).isEqualTo(1);
+            assertThat(result.getChange().getFilmVersion()).isEqualTo(versionBefore + 1);
             assertThat(storage.hasUserLikedFilm(filmId1, userId1)).isTrue();
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isEqualTo(1));
         }
 
         @Test
-        @DisplayName("Проверяем добавление повторного лайка тем же юзером — должен вернуть false")
-        void addLikeIfNotExists_Should_Not_Duplicate_Like_And_Return_False_Test() {
+        @DisplayName("Проверяем повторный лайк — должен вернуть ALREADY_LIKED без ошибки ограничения")
+        void addLike_Should_Return_Already_Liked_For_Duplicate_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
             // when
-            boolean addedAgain = storage.addLikeIfNotExists(filmId1, userId1);
+            AddLikeResult result = storage.addLike(filmId1, userId1, LocalDateTime.now());
             // then
-            assertThat(addedAgain).isFalse();
-            assertThat(storage.getLikesCountOfFilm(filmId1)).isEqualTo(1);
+            assertThat(result).isEqualTo(AddLikeResult.ALREADY_LIKED);
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isEqualTo(1));
         }
 
         @Test
-        @DisplayName("Проверяем добавление лайков от разных пользователей - должны все сохраниться")
-        void addLikeIfNotExists_Should_Allow_Multiple_Users_To_Like_Test() {
-            // given, when
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId1, userId2);
-            // then
-            assertThat(storage.getLikesCountOfFilm(filmId1)).isEqualTo(2);
+        @DisplayName("Проверяем лайк несуществующему фильму и от несуществующего пользователя")
+        void addLike_Should_Detect_Missing_Film_And_User_Test() {
+            // given, when, then
+            assertThat(storage.addLike(666L, userId1, LocalDateTime.now())).isEqualTo(AddLikeResult.FILM_NOT_FOUND);
+            assertThat(storage.addLike(filmId1, 666L, LocalDateTime.now())).isEqualTo(AddLikeResult.USER_NOT_FOUND);
+            assertThat(likesCountOf(filmId1)).isZero();
         }
-    }
-
-    @Nested
-    @DisplayName("Тесты getLikesCountOfFilm")
-    class GetLikesCountOfFilmTests {
 
         @Test
-        @DisplayName("Проверяем получение лайков у фильма")
-        void getLikesCountOfFilm_Should_Return_Correct_Likes_Count_For_Film_With_Likes_Test() {
+        @DisplayName("Проверяем удаление лайка — должен вернуть время лайка и новый счётчик")
+        void deleteLike_Should_Return_Liked_At_And_Decrement_Counter_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId1, userId2);
-            // when, then
-            assertThat(storage.getLikesCountOfFilm(filmId1)).isEqualTo(2);
-        }
-
-        @Test
-        @DisplayName("Проверяем получение нуля для фильма без лайков")
-        void getLikesCountOfFilm_Should_Return_Zero_For_Film_Without_Likes_Test() {
-            // given, when, then
-            assertThat(storage.getLikesCountOfFilm(filmId2)).isZero();
+            LocalDateTime likedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+            storage.addLike(filmId1, userId1, likedAt);
+            // when
+            Optional<LikeChange> change = storage.deleteLike(filmId1, userId1);
+            // then
+            assertThat(change).hasValueSatisfying(deleted -> {
+                assertThat(deleted.getLikedAt()).isEqualTo(likedAt);
+                assertThat(deleted.getLikesCount()).isZero();
+            });
+            assertThat(storage.hasUserLikedFilm(filmId1, userId1)).isFalse();
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isZero());
         }
 
         @Test
-        @DisplayName("Проверяем получение нуля для несуществующего фильма")
-        void getLikesCountOfFilm_Should_Return_Zero_For_Non_Existing_Film_Test() {
+        @DisplayName("Проверяем удаление отсутствующего лайка — должен вернуть пустой Optional")
+        void deleteLike_Should_Return_Empty_When_Like_Not_Exists_Test() {
             // given, when, then
-            assertThat(storage.getLikesCountOfFilm(666L)).isZero();
+            assertThat(storage.deleteLike(filmId1, userId1)).isEmpty();
         }
     }
 
     @Nested
-    @DisplayName("Тесты getLikesCountByFilmsIds")
-    class GetLikesCountByFilmsIdsTests {
+    @DisplayName("Тесты getLikesGivenCountByUsersIds")
+    class GetLikesGivenCountByUsersIdsTests {
 
         @Test
-        @DisplayName("Проверяем получение количества лайков для нескольких фильмов")
-        void getLikesCountByFilmsIds_Should_Return_Correct_Map_For_Multiple_Films_Test() {
+        @DisplayName("Проверяем получение количества поставленных лайков для нескольких пользователей")
+        void getLikesGivenCountByUsersIds_Should_Return_Correct_Map_For_Multiple_Users_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId1, userId2);
-            storage.addLikeIfNotExists(filmId2, userId1);
-            Set<Long> filmIds = Set.of(filmId1, filmId2, filmId3);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId2, userId1, LocalDateTime.now());
+            storage.addLike(filmId3, userId2, LocalDateTime.now());
+            Set<Long> userIds = Set.of(userId1, userId2, userId3);
             // when
-            Map<Long, Integer> result = storage.getLikesCountByFilmsIds(filmIds);
+            Map<Long, Integer> result = storage.getLikesGivenCountByUsersIds(userIds);
             // then
             assertThat(result)
-                    .containsEntry(filmId1, 2)
-                    .containsEntry(filmId2, 1)
-                    .containsEntry(filmId3, 0);
-        }
-
-        @Test
-        @DisplayName("Проверяем получение пустого набора лайков для пустого набора ID")
-        void getLikesCountByFilmsIds_Should_Return_Empty_Map_For_Empty_FilmIds_Test() {
-            // given, when
-            Map<Long, Integer> result = storage.getLikesCountByFilmsIds(Set.of());
-            // then
-            assertThat(result).isEmpty();
+                    .containsEntry(userId1, 2)
+                    .containsEntry(userId2, 1)
+                    .containsEntry(userId3, 0);
         }
     }
 
@@ -205,9 +215,9 @@ class FilmLikesDbStorageTest {
         @DisplayName("Проверяем получение списка фильмов, которым пользователь поставил лайк")
         void getFilmsIdsLikedByUser_Should_Return_Correct_When_User_Has_Likes_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId2, userId1);
-            storage.addLikeIfNotExists(filmId3, userId2);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId2, userId1, LocalDateTime.now());
+            storage.addLike(filmId3, userId2, LocalDateTime.now());
             // when
             Set<Long> result = storage.getFilmsIdsLikedByUser(userId1);
             // then
@@ -243,12 +253,12 @@ class FilmLikesDbStorageTest {
         @DisplayName("Проверяем получение топ‑фильмов по лайкам — должен вернуть корректную карту с сортировкой")
         void getTopPopularFilmsIds_Should_Return_Correct_Sorted_Map_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId1, userId2);
-            storage.addLikeIfNotExists(filmId1, userId3);
-            storage.addLikeIfNotExists(filmId2, userId1);
-            storage.addLikeIfNotExists(filmId3, userId3);
-            storage.addLikeIfNotExists(filmId3, userId1);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            storage.addLike(filmId1, userId3, LocalDateTime.now());
+            storage.addLike(filmId2, userId1, LocalDateTime.now());
+            storage.addLike(filmId3, userId3, LocalDateTime.now());
+            storage.addLike(filmId3, userId1, LocalDateTime.now());
             // when
             LinkedHashMap<Long, Integer> result = storage.getTopPopularFilmsIds(3);
             // then
@@ -274,9 +284,9 @@ class FilmLikesDbStorageTest {
         @DisplayName("Проверяем получение всех фильмов при count/limit больше чем количество записей")
         void getTopPopularFilmsIds_Should_Return_All_Films_When_Limit_Is_Large_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId2, userId1);
-            storage.addLikeIfNotExists(filmId2, userId2);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId2, userId1, LocalDateTime.now());
+            storage.addLike(filmId2, userId2, LocalDateTime.now());
             // when
             LinkedHashMap<Long, Integer> result = storage.getTopPopularFilmsIds(100);
             // then
@@ -290,40 +300,195 @@ class FilmLikesDbStorageTest {
     }
 
     @Nested
-    @DisplayName("Тесты deleteLikeFromFilmIfExists")
-    class DeleteLikeFromFilmIfExistsTests {
+    @DisplayName("Тесты счётчика films.likes_count")
+    class FilmLikesCountColumnTests {
+        @Test
+        @DisplayName("Проверяем, что счётчик лайков фильма меняется вместе с film_likes")
+        void likesCount_Should_Follow_Added_And_Deleted_Likes_Test() {
+            // given
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            // when
+            storage.deleteLike(filmId1, userId1);
+            storage.deleteLike(filmId1, userId1);
+            // then
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isEqualTo(1));
+        }
 
         @Test
-        @DisplayName("Проверяем удаление существующего лайка — должен вернуть true")
-        void deleteLikeFromFilmIfExists_Should_Delete_Existing_Like_And_Return_True_Test() {
+        @DisplayName("Проверяем сброс счётчика при удалении всех лайков фильма")
+        void likesCount_Should_Be_Reset_When_All_Likes_Deleted_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
             // when
-            boolean deleted = storage.deleteLikeFromFilmIfExists(filmId1, userId1);
+            storage.deleteAllLikesFromFilmIfExists(filmId1);
             // then
-            assertThat(deleted).isTrue();
-            assertThat(storage.getLikesCountOfFilm(filmId1)).isZero();
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isZero());
         }
 
         @Test
-        @DisplayName("Проверяем попытку удаления несуществующего лайка — должен вернуть false")
-        void deleteLikeFromFilmIfExists_Should_Return_False_For_Non_Existing_Like_Test() {
+        @DisplayName("Проверяем пересчёт испорченных счётчиков порцией фильмов")
+        void recountLikesOfFilmsChunk_Should_Repair_Broken_Counters_Test() {
+            // given
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId2, userId1, LocalDateTime.now());
+            jdbcTemplate.update("UPDATE films SET likes_count = 42 WHERE id = ?", filmId1);
+            Optional<Long> upperFilmId = storage.getFilmsChunkUpperId(filmId1 - 1, 3);
+            // when
+            int repairedCount = storage.recountLikesOfFilmsChunk(filmId1 - 1, upperFilmId.orElseThrow());
+            // then
+            assertThat(upperFilmId).contains(filmId3);
+            assertThat(repairedCount).isEqualTo(1);
+            assertThat(filmStorage.findById(filmId1))
+                    .isPresent()
+                    .hasValueSatisfying(film -> assertThat(film.getLikesCount()).isEqualTo(1));
+        }
+
+        @Test
+        @DisplayName("Проверяем, что за последним фильмом порций больше нет")
+        void getFilmsChunkUpperId_Should_Return_Empty_After_Last_Film_Test() {
             // given, when
-            boolean deleted = storage.deleteLikeFromFilmIfExists(filmId1, userId1);
+            Optional<Long> upperFilmId = storage.getFilmsChunkUpperId(filmId3, 100);
+            // then
+            assertThat(upperFilmId).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты пакетной записи лайков")
+    class BatchLikesTests {
+        @Test
+        @DisplayName("Проверяем пакетное добавление — возвращаются только новые лайки")
+        void addLikesIfNotExist_Should_Return_Only_Added_Likes_Test() {
+            // given
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            List<FilmLike> likes = List.of(
+                    new FilmLike(filmId1, userId1),
+                    new FilmLike(filmId1, userId2),
+                    new FilmLike(filmId2, userId3));
+            // when
+            List<FilmLike> added = storage.addLikesIfNotExist(likes);
             // then
-            assertThat(deleted).isFalse();
+            assertThat(added).containsExactly(new FilmLike(filmId1, userId2), new FilmLike(filmId2, userId3));
+            assertThat(likesCountOfAllFilms())
+                    .containsEntry(filmId1, 2)
+                    .containsEntry(filmId2, 1);
         }
 
         @Test
-        @DisplayName("Проверяем повторное удаление — должен вернуть false после первого удаления")
-        void deleteLikeFromFilmIfExists_Should_Return_False_On_Second_Delete_Attempt_Test() {
+        @DisplayName("Проверяем пакетное удаление — возвращаются только удалённые лайки")
+        void deleteLikesIfExist_Should_Return_Only_Deleted_Likes_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.deleteLikeFromFilmIfExists(filmId1, userId1);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            List<FilmLike> likes = List.of(
+                    new FilmLike(filmId1, userId1),
+                    new FilmLike(filmId2, userId1));
             // when
-            boolean deletedAgain = storage.deleteLikeFromFilmIfExists(filmId1, userId1);
-            //then
-            assertThat(deletedAgain).isFalse();
+            List<FilmLike> deleted = storage.deleteLikesIfExist(likes);
+            // then
+            assertThat(deleted).containsExactly(new FilmLike(filmId1, userId1));
+            assertThat(likesCountOfAllFilms())
+                    .containsEntry(filmId1, 1)
+                    .doesNotContainKey(filmId2);
+        }
+
+        @Test
+        @DisplayName("Проверяем пакетную запись пустого списка")
+        void addLikesIfNotExist_Should_Return_Empty_List_For_Empty_Input_Test() {
+            // given, when, then
+            assertThat(storage.addLikesIfNotExist(List.of())).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты времени лайков")
+    class LikedAtTests {
+        @Test
+        @DisplayName("Проверяем обход лайков начиная с заданного момента")
+        void forEachLikeSince_Should_Visit_Only_Recent_Likes_Test() {
+            // given
+            LocalDateTime now = LocalDateTime.now();
+            storage.addLike(filmId1, userId1, now.minusDays(10));
+            storage.addLike(filmId1, userId2, now.minusHours(2));
+            storage.addLike(filmId2, userId1, now.minusMinutes(5));
+            Map<Long, Integer> visited = new HashMap<>();
+            // when
+            storage.forEachLikeSince(now.minusDays(7), (filmId, likedAt) -> visited.merge(filmId, 1, Integer::sum));
+            // then
+            assertThat(visited)
+                    .hasSize(2)
+                    .containsEntry(filmId1, 1)
+                    .containsEntry(filmId2, 1);
+        }
+
+        @Test
+        @DisplayName("Проверяем обход недавних лайков только у заданных фильмов")
+        void forEachLikeOfFilmsSince_Should_Visit_Only_Recent_Likes_Of_Given_Films_Test() {
+            // given
+            LocalDateTime now = LocalDateTime.now();
+            storage.addLike(filmId1, userId1, now.minusDays(10));
+            storage.addLike(filmId1, userId2, now.minusHours(2));
+            storage.addLike(filmId2, userId1, now.minusMinutes(5));
+            Map<Long, Integer> visited = new HashMap<>();
+            // when
+            storage.forEachLikeOfFilmsSince(Set.of(filmId1), now.minusDays(7),
+                    (filmId, likedAt) -> visited.merge(filmId, 1, Integer::sum));
+            storage.forEachLikeOfFilmsSince(Set.of(), now.minusDays(7),
+                    (filmId, likedAt) -> visited.merge(filmId, 1, Integer::sum));
+            // then
+            assertThat(visited).containsExactly(Map.entry(filmId1, 1));
+        }
+
+        @Test
+        @DisplayName("Проверяем, что пакетное удаление возвращает время удалённых лайков")
+        void deleteLikesIfExist_Should_Return_Liked_At_Of_Deleted_Likes_Test() {
+            // given
+            LocalDateTime likedAt = LocalDateTime.of(2024, 5, 1, 12, 30);
+            storage.addLike(filmId1, userId1, likedAt);
+            // when
+            List<FilmLike> deleted = storage.deleteLikesIfExist(List.of(new FilmLike(filmId1, userId1)));
+            // then
+            assertThat(deleted)
+                    .singleElement()
+                    .extracting(FilmLike::getLikedAt)
+                    .isEqualTo(likedAt);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты forEachLikesCount")
+    class ForEachLikesCountTests {
+        @Test
+        @DisplayName("Проверяем получение количества лайков всех фильмов, у которых есть лайки")
+        void forEachLikesCount_Should_Visit_Counts_Of_Liked_Films_Test() {
+            // given
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            storage.addLike(filmId2, userId3, LocalDateTime.now());
+            // when
+            Map<Long, Integer> result = likesCountOfAllFilms();
+            // then
+            assertThat(result)
+                    .hasSize(2)
+                    .containsEntry(filmId1, 2)
+                    .containsEntry(filmId2, 1)
+                    .doesNotContainKey(filmId3);
+        }
+
+        @Test
+        @DisplayName("Проверяем получение пустого результата, если лайков нет")
+        void forEachLikesCount_Should_Visit_Nothing_Without_Likes_Test() {
+            // given, when
+            Map<Long, Integer> result = likesCountOfAllFilms();
+            // then
+            assertThat(result).isEmpty();
         }
     }
 
@@ -335,14 +500,14 @@ class FilmLikesDbStorageTest {
         @DisplayName("Проверяем удаление всех лайков у фильма — должен вернуть true")
         void deleteAllLikesFromFilmIfExists_Should_Delete_All_Likes_And_Return_True_Test() {
             // given
-            storage.addLikeIfNotExists(filmId1, userId1);
-            storage.addLikeIfNotExists(filmId1, userId2);
-            storage.addLikeIfNotExists(filmId1, userId3);
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            storage.addLike(filmId1, userId3, LocalDateTime.now());
             // when
             boolean deletedAll = storage.deleteAllLikesFromFilmIfExists(filmId1);
             // then
             assertThat(deletedAll).isTrue();
-            assertThat(storage.getLikesCountOfFilm(filmId1)).isZero();
+            assertThat(likesCountOf(filmId1)).isZero();
         }
 
         @Test
@@ -363,4 +528,49 @@ class FilmLikesDbStorageTest {
             assertThat(deletedAll).isFalse();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты версий фильмов и пользователей")
+    class VersionTests {
+        @Test
+        @DisplayName("Лайк и его снятие повышают версии фильма и пользователя")
+        void like_Should_Bump_Film_And_User_Versions_Test() {
+            // given, when
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.deleteLike(filmId1, userId1);
+            // then
+            assertThat(filmStorage.findVersion(filmId1)).contains(2L);
+            assertThat(userStorage.findVersion(userId1)).contains(2L);
+            assertThat(filmStorage.findVersion(filmId2)).contains(0L);
+            assertThat(userStorage.findVersion(userId2)).contains(0L);
+        }
+
+        @Test
+        @DisplayName("Пакет лайков повышает версии затронутых фильмов и пользователей")
+        void addLikesIfNotExist_Should_Bump_Versions_Test() {
+            // given, when
+            storage.addLikesIfNotExist(List.of(new FilmLike(filmId1, userId1), new FilmLike(filmId1, userId2),
+                    new FilmLike(filmId2, userId1)));
+            // then
+            assertThat(filmStorage.findVersion(filmId1)).contains(1L);
+            assertThat(filmStorage.findVersion(filmId2)).contains(1L);
+            assertThat(userStorage.findVersion(userId1)).contains(1L);
+            assertThat(userStorage.findVersion(userId2)).contains(1L);
+            assertThat(userStorage.findVersion(userId3)).contains(0L);
+        }
+
+        @Test
+        @DisplayName("Удаление всех лайков фильма повышает версии всех лайкнувших")
+        void deleteAllLikesFromFilmIfExists_Should_Bump_Likers_Versions_Test() {
+            // given
+            storage.addLike(filmId1, userId1, LocalDateTime.now());
+            storage.addLike(filmId1, userId2, LocalDateTime.now());
+            // when
+            storage.deleteAllLikesFromFilmIfExists(filmId1);
+            // then
+            assertThat(filmStorage.findVersion(filmId1)).contains(3L);
+            assertThat(userStorage.findVersion(userId1)).contains(2L);
+            assertThat(userStorage.findVersion(userId2)).contains(2L);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import java.time.LocalDate;
 import java.util.*;
@@ -70,18 +71,18 @@ class FriendshipDbStorageTest {
         }
 
         @Test
-        @DisplayName("Проверяем выброс исключения при повторном добавлении друга")
-        void addFriend_Should_Throw_Exception_On_Duplicate_Test() {
+        @DisplayName("Повторное добавление друга ничего не меняет")
+        void addFriend_Should_Ignore_Duplicate_Test() {
             // given
             Long user = userId1;
             Long friend = userId2;
-            // when
             storage.addFriend(user, friend);
+            // when
+            boolean added = storage.addFriend(user, friend);
             // then
-            assertThatThrownBy(() -> storage.addFriend(user, friend))
-                    .isInstanceOf(RuntimeException.class)
-                    .hasMessageContaining("Не удалось добавить запись в БД");
+            assertThat(added).isFalse();
             assertThat(storage.getUserFriendsCount(user)).isEqualTo(1);
+            assertThat(userStorage.findById(friend)).get().extracting(User::getFollowersCount).isEqualTo(1);
         }
     }
 
@@ -221,8 +222,9 @@ class FriendshipDbStorageTest {
             assertThat(storage.isFriend(userId1, userId2)).isTrue();
             assertThat(storage.isFriend(userId2, userId1)).isFalse();
             // when
-            storage.removeFriend(userId1, userId2);
+            boolean removed = storage.removeFriend(userId1, userId2);
             // then
+            assertThat(removed).isTrue();
             assertThat(storage.isFriend(userId1, userId2)).isFalse();
             assertThat(storage.getUserFriendsCount(userId1)).isZero();
         }
@@ -259,6 +261,90 @@ class FriendshipDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты счётчика users.followers_count")
+    class FollowersCountTests {
+        @Test
+        @DisplayName("Счётчик подписчиков меняется при добавлении и удалении дружбы")
+        void followersCount_Should_Follow_Added_And_Removed_Friendships_Test() {
+            // given
+            storage.addFriend(userId1, userId4);
+            storage.addFriend(userId2, userId4);
+            storage.addFriend(userId3, userId4);
+            // when
+            storage.removeFriend(userId2, userId4);
+            storage.removeFriend(userId2, userId4);
+            // then
+            assertThat(userStorage.findById(userId4))
+                    .isPresent()
+                    .hasValueSatisfying(user -> assertThat(user.getFollowersCount()).isEqualTo(2));
+            assertThat(userStorage.findById(userId1))
+                    .isPresent()
+                    .hasValueSatisfying(user -> assertThat(user.getFollowersCount()).isZero());
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты пакетного изменения друзей")
+    class BatchFriendshipsTests {
+        @Test
+        @DisplayName("Пакетное добавление пропускает существующую дружбу и обновляет счётчики подписчиков")
+        void addFriendsIfNotExist_Should_Skip_Existing_Friendships_Test() {
+            // given
+            storage.addFriend(userId1, userId2);
+            List<Friendship> friendships = List.of(
+                    new Friendship(userId1, userId2),
+                    new Friendship(userId1, userId3),
+                    new Friendship(userId4, userId3));
+            // when
+            List<Friendship> added = storage.addFriendsIfNotExist(friendships);
+            // then
+            assertThat(added).containsExactly(new Friendship(userId1, userId3), new Friendship(userId4, userId3));
+            assertThat(storage.getFriendsIdsOfUser(userId1)).containsExactlyInAnyOrder(userId2, userId3);
+            assertThat(userStorage.findById(userId3))
+                    .isPresent()
+                    .hasValueSatisfying(user -> assertThat(user.getFollowersCount()).isEqualTo(2));
+        }
+
+        @Test
+        @DisplayName("Пакетное удаление возвращает только удалённые записи")
+        void removeFriendsIfExist_Should_Return_Only_Removed_Friendships_Test() {
+            // given
+            storage.addFriend(userId1, userId2);
+            // when
+            List<Friendship> removed = storage.removeFriendsIfExist(List.of(
+                    new Friendship(userId1, userId2),
+                    new Friendship(userId1, userId3)));
+            // then
+            assertThat(removed).containsExactly(new Friendship(userId1, userId2));
+            assertThat(storage.isFriend(userId1, userId2)).isFalse();
+            assertThat(userStorage.findById(userId2))
+                    .isPresent()
+                    .hasValueSatisfying(user -> assertThat(user.getFollowersCount()).isZero());
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты forEachFriendship()")
+    class ForEachFriendshipTests {
+        @Test
+        @DisplayName("Обходим все записи о дружбе в порядке user_id, friend_id")
+        void forEachFriendship_Should_Visit_All_Friendships_In_Order_Test() {
+            // given
+            storage.addFriend(userId2, userId1);
+            storage.addFriend(userId1, userId3);
+            storage.addFriend(userId1, userId2);
+            List<Long[]> visited = new ArrayList<>();
+            // when
+            storage.forEachFriendship((user, friend) -> visited.add(new Long[]{user, friend}));
+            // then
+            assertThat(visited).containsExactly(
+                    new Long[]{userId1, userId2},
+                    new Long[]{userId1, userId3},
+                    new Long[]{userId2, userId1});
+        }
+    }
+
     @Nested
     @DisplayName("Тесты getCommonFriends()")
     class GetCommonFriendsTests {
@@ -317,4 +403,25 @@ class FriendshipDbStorageTest {
                     .containsExactlyInAnyOrder(userId4, userId3);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Тесты recountFollowersCounts()")
+    class RecountFollowersCountsTests {
+        @Test
+        @DisplayName("Расходящиеся счётчики подписчиков пересчитываются по таблице friendship")
+        void recountFollowersCounts_Should_Fix_Drifted_Counters_Test() {
+            // given
+            storage.addFriend(userId1, userId3);
+            storage.addFriend(userId2, userId3);
+            jdbcTemplate.update("UPDATE users SET followers_count = 0 WHERE id = ?", userId3);
+            jdbcTemplate.update("UPDATE users SET followers_count = 5 WHERE id = ?", userId4);
+            // when
+            int repaired = storage.recountFollowersCounts();
+            // then
+            assertThat(repaired).isEqualTo(2);
+            assertThat(userStorage.findById(userId3)).get().extracting(User::getFollowersCount).isEqualTo(2);
+            assertThat(userStorage.findById(userId4)).get().extracting(User::getFollowersCount).isEqualTo(0);
+            assertThat(storage.recountFollowersCounts()).isZero();
+        }
+    }
+}
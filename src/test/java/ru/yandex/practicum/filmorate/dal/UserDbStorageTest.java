@@ -26,6 +26,7 @@ class UserDbStorageTest {
 
     @AfterEach
     void tearDown() {
+        jdbcTemplate.execute("DELETE FROM friendship");
         jdbcTemplate.execute("DELETE FROM users");
     }
 
@@ -115,6 +116,31 @@ class UserDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты findVersion()")
+    class FindVersionTests {
+        @Test
+        @DisplayName("Версия нового пользователя равна нулю и растёт при обновлении")
+        void findVersion_Should_Increase_On_Update_Test() {
+            // given
+            User user = storage.create(createTestUser(TEST_EMAIL));
+            long initialVersion = storage.findVersion(user.getId()).orElseThrow();
+            user.setName("updatedName");
+            // when
+            storage.update(user);
+            // then
+            assertThat(initialVersion).isZero();
+            assertThat(storage.findVersion(user.getId())).contains(1L);
+        }
+
+        @Test
+        @DisplayName("Для несуществующего пользователя версии нет")
+        void findVersion_Should_Return_Empty_For_Non_Exists_User_Test() {
+            // given, when, then
+            assertThat(storage.findVersion(666L)).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Тесты findAll()")
     class FindAllTests {
@@ -142,6 +168,42 @@ class UserDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты findPage()")
+    class FindPageTests {
+        @Test
+        @DisplayName("Страница пользователей начинается после курсора и ограничена limit")
+        void findPage_Should_Return_Users_After_Cursor_Limited_Test() {
+            // given
+            User user1 = storage.create(createTestUser(TEST_EMAIL));
+            User user2 = storage.create(createTestUser("other@test.com"));
+            User user3 = storage.create(createTestUser("third@test.com"));
+            // when
+            List<User> firstPage = storage.findPage(0, 2);
+            List<User> secondPage = storage.findPage(firstPage.getLast().getId(), 2);
+            // then
+            assertThat(firstPage).containsExactly(user1, user2);
+            assertThat(secondPage).containsExactly(user3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты forEach()")
+    class ForEachTests {
+        @Test
+        @DisplayName("Обход всех пользователей: должен передать каждую запись обработчику по возрастанию ID")
+        void forEach_Should_Visit_All_Users_Test() {
+            // given
+            User user1 = storage.create(createTestUser(TEST_EMAIL));
+            User user2 = storage.create(createTestUser("other@test.com"));
+            List<User> visited = new ArrayList<>();
+            // when
+            storage.forEach(visited::add);
+            // then
+            assertThat(visited).containsExactly(user1, user2);
+        }
+    }
+
     @Nested
     @DisplayName("Тесты findById()")
     class FindByIdTests {
@@ -242,6 +304,105 @@ class UserDbStorageTest {
         }
     }
 
+    @Nested
+    @DisplayName("Тесты постраничного получения друзей")
+    class FriendsPageTests {
+        private void addFriend(Long userId, Long friendId) {
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", userId, friendId);
+        }
+
+        @Test
+        @DisplayName("Проверяем, что страницы друзей идут по возрастанию ID после курсора")
+        void findFriendsPage_Should_Return_Friends_After_Cursor_Test() {
+            // given
+            User user = storage.create(createTestUser(TEST_EMAIL));
+            List<Long> friendsIds = new ArrayList<>();
+            for (int idx = 0; idx < 5; idx++) {
+                Long friendId = storage.create(createTestUser(idx + TEST_EMAIL)).getId();
+                friendsIds.add(friendId);
+                addFriend(user.getId(), friendId);
+            }
+            // when
+            List<User> firstPage = storage.findFriendsPage(user.getId(), 0, 2);
+            List<User> secondPage = storage.findFriendsPage(user.getId(), firstPage.get(1).getId(), 2);
+            List<User> lastPage = storage.findFriendsPage(user.getId(), secondPage.get(1).getId(), 2);
+            // then
+            assertThat(firstPage).extracting(User::getId).containsExactly(friendsIds.get(0), friendsIds.get(1));
+            assertThat(secondPage).extracting(User::getId).containsExactly(friendsIds.get(2), friendsIds.get(3));
+            assertThat(lastPage).extracting(User::getId).containsExactly(friendsIds.get(4));
+        }
+
+        @Test
+        @DisplayName("Проверяем страницу общих друзей")
+        void findCommonFriendsPage_Should_Return_Only_Common_Friends_After_Cursor_Test() {
+            // given
+            User user = storage.create(createTestUser(TEST_EMAIL));
+            User other = storage.create(createTestUser("other@test.com"));
+            Long common1 = storage.create(createTestUser("common1@test.com")).getId();
+            Long onlyUserFriend = storage.create(createTestUser("single@test.com")).getId();
+            Long common2 = storage.create(createTestUser("common2@test.com")).getId();
+            addFriend(user.getId(), common1);
+            addFriend(user.getId(), onlyUserFriend);
+            addFriend(user.getId(), common2);
+            addFriend(other.getId(), common1);
+            addFriend(other.getId(), common2);
+            // when
+            List<User> firstPage = storage.findCommonFriendsPage(user.getId(), other.getId(), 0, 1);
+            List<User> secondPage = storage.findCommonFriendsPage(user.getId(), other.getId(), common1, 10);
+            // then
+            assertThat(firstPage).extracting(User::getId).containsExactly(common1);
+            assertThat(secondPage).extracting(User::getId).containsExactly(common2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты findFollowersPage()")
+    class FindFollowersPageTests {
+        @Test
+        @DisplayName("Проверяем, что возвращаются добавившие пользователя в друзья по возрастанию ID")
+        void findFollowersPage_Should_Return_Followers_After_Cursor_Test() {
+            // given
+            User user = storage.create(createTestUser(TEST_EMAIL));
+            Long follower1 = storage.create(createTestUser("follower1@test.com")).getId();
+            Long follower2 = storage.create(createTestUser("follower2@test.com")).getId();
+            Long friendOnly = storage.create(createTestUser("friend@test.com")).getId();
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", follower1, user.getId());
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", follower2, user.getId());
+            jdbcTemplate.update("INSERT INTO friendship (user_id, friend_id) VALUES (?, ?)", user.getId(), friendOnly);
+            // when
+            List<User> firstPage = storage.findFollowersPage(user.getId(), 0, 1);
+            List<User> secondPage = storage.findFollowersPage(user.getId(), follower1, 10);
+            // then
+            assertThat(firstPage).extracting(User::getId).containsExactly(follower1);
+            assertThat(secondPage).extracting(User::getId).containsExactly(follower2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Тесты findExistingIds()")
+    class FindExistingIdsTests {
+        @Test
+        @DisplayName("Проверяем что возвращаются только ID существующих пользователей")
+        void findExistingIds_Should_Return_Only_Existing_Ids_Test() {
+            // given
+            User user1 = storage.create(createTestUser(TEST_EMAIL));
+            User user2 = storage.create(createTestUser("other@test.com"));
+            // when
+            Set<Long> existing = storage.findExistingIds(List.of(user1.getId(), user2.getId(), 666L));
+            // then
+            assertThat(existing).containsExactlyInAnyOrder(user1.getId(), user2.getId());
+        }
+
+        @Test
+        @DisplayName("Проверяем обработку пустого списка ID")
+        void findExistingIds_Should_Return_Empty_Set_For_Empty_Ids_Test() {
+            // given, when
+            Set<Long> existing = storage.findExistingIds(List.of());
+            // then
+            assertThat(existing).isEmpty();
+        }
+    }
+
     @Nested
     @DisplayName("Тесты delete()")
     class DeleteTests {
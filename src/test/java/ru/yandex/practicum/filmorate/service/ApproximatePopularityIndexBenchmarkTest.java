@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение приближённого рейтинга популярности с точным SQL-запросом
+ * на синтетическом наборе лайков с распределением Ципфа.
+ * Запускается профилем benchmark: mvn test -Pbenchmark -Dtest=ApproximatePopularityIndexBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Бенчмарк ApproximatePopularityIndex")
+class ApproximatePopularityIndexBenchmarkTest {
+    private static final int FILMS_COUNT = 500;
+    private static final int USERS_COUNT = 300;
+    private static final int LIKES_PER_USER = 40;
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final double EPSILON = 0.001;
+    private static final double DELTA = 0.01;
+    private static final int TOP_COUNT = 10;
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private FilmLikesDbStorage storage;
+    private final List<Object[]> likes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        storage = new FilmLikesDbStorage(jdbcTemplate);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS_COUNT; i++) {
+            users.add(new Object[]{"bench" + i + "@test.com", "login" + i, "name" + i, LocalDate.of(1990, 1, 1)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", users);
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 0; i < FILMS_COUNT; i++) {
+            films.add(new Object[]{"Film " + i, "Description", LocalDate.of(2000, 1, 1), 100, 1L});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO films (name, description, release_date, duration, rating_mpaa_id)
+                VALUES (?, ?, ?, ?, ?)
+                """, films);
+
+        List<Long> usersIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<Long> filmsIds = jdbcTemplate.queryForList("SELECT id FROM films ORDER BY id", Long.class);
+        double[] cumulative = new double[FILMS_COUNT];
+        double sum = 0;
+        for (int rank = 0; rank < FILMS_COUNT; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        Random random = new Random(42);
+        for (Long userId : usersIds) {
+            Set<Long> likedFilms = new HashSet<>();
+            while (likedFilms.size() < LIKES_PER_USER) {
+                int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                likedFilms.add(filmsIds.get(rank < 0 ? -rank - 1 : rank));
+            }
+            likedFilms.forEach(filmId -> likes.add(new Object[]{filmId, userId}));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", likes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM film_likes");
+        jdbcTemplate.execute("DELETE FROM films");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    @Test
+    @DisplayName("Приближённый топ совпадает с точным в пределах погрешности и строится без SQL")
+    void approximateTop_Should_Match_Exact_Top_Within_Error_Bounds_Test() {
+        // given
+        ApproximatePopularityIndex index = new ApproximatePopularityIndex(storage, EPSILON, DELTA, 100);
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] like : likes) {
+            Long filmId = (Long) like[0];
+            Long userId = (Long) like[1];
+            index.onFilmLike(new FilmLikeEvent(filmId, userId, true, now));
+            if (userId % 10 == 0) {
+                index.onFilmLike(new FilmLikeEvent(filmId, userId, false, now));
+                index.onFilmLike(new FilmLikeEvent(filmId, userId, true, now));
+            }
+        }
+        // when
+        long exactNanos = measure(() -> storage.getTopPopularFilmsIds(TOP_COUNT));
+        long approximateNanos = measure(() -> index.getTopPopularFilmsIds(TOP_COUNT));
+        LinkedHashMap<Long, Integer> exactTop = storage.getTopPopularFilmsIds(TOP_COUNT);
+        LinkedHashMap<Long, Long> approximateTop = index.getTopPopularFilmsIds(TOP_COUNT);
+        // then
+        int threshold = Collections.min(exactTop.values());
+        Map<Long, Integer> exactCounts = exactLikesCount(approximateTop.keySet());
+        long hits = approximateTop.keySet().stream()
+                .filter(filmId -> exactCounts.getOrDefault(filmId, 0) >= threshold)
+                .count();
+        double recall = (double) hits / TOP_COUNT;
+        long maxError = Math.round(EPSILON * likes.size());
+        log.info("Лайков: {}, recall@{}: {}, SQL: {} мкс, приближённо: {} мкс", likes.size(), TOP_COUNT, recall,
+                exactNanos / 1_000, approximateNanos / 1_000);
+
+        assertThat(recall).isGreaterThanOrEqualTo(0.9);
+        approximateTop.forEach((filmId, estimate) -> assertThat(estimate)
+                .isGreaterThanOrEqualTo(exactCounts.get(filmId))
+                .isLessThanOrEqualTo(exactCounts.get(filmId) + maxError));
+    }
+
+    private Map<Long, Integer> exactLikesCount(Set<Long> filmsIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        filmsIds.forEach(filmId -> result.put(filmId, 0));
+        for (Object[] like : likes) {
+            result.computeIfPresent((Long) like[0], (filmId, likesCount) -> likesCount + 1);
+        }
+        return result;
+    }
+
+    private long measure(Supplier<?> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dto.BatchItemStatus;
+import ru.yandex.practicum.filmorate.dto.FilmImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Тесты FilmBulkImporter")
+class FilmBulkImporterTest {
+    @Autowired
+    private FilmBulkImporter importer;
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private FilmGenresDbStorage filmGenresDbStorage;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM film_genres");
+        jdbcTemplate.execute("DELETE FROM films");
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String film(String name, String releaseDate, long mpaId, String genres) {
+        return String.format("{\"name\":\"%s\",\"description\":\"Описание\",\"releaseDate\":\"%s\","
+                + "\"duration\":120,\"mpa\":{\"id\":%d},\"genres\":[%s]}", name, releaseDate, mpaId, genres);
+    }
+
+    @Test
+    @DisplayName("Корректные строки создают фильмы с жанрами, ошибки не прерывают импорт")
+    void importFilms_Should_Create_Valid_Films_And_Report_Errors_Test() {
+        // given
+        InputStream in = ndjson(
+                film("Матрица", "1999-03-31", 4, "{\"id\":1},{\"id\":2}"),
+                "{не json",
+                "",
+                film("Слишком старый", "1800-01-01", 1, ""),
+                film("Без рейтинга", "2000-01-01", 999, ""),
+                film("Без жанра", "2000-01-01", 1, "{\"id\":999}"),
+                film("Начало", "2010-07-16", 3, ""));
+        // when
+        List<FilmImportResult> results = importer.importFilms(in);
+        // then
+        assertThat(results).extracting(FilmImportResult::getLine).containsExactly(1, 2, 4, 5, 6, 7);
+        assertThat(results).extracting(FilmImportResult::getStatus).containsExactly(
+                BatchItemStatus.CREATED,
+                BatchItemStatus.INVALID,
+                BatchItemStatus.INVALID,
+                BatchItemStatus.NOT_FOUND,
+                BatchItemStatus.NOT_FOUND,
+                BatchItemStatus.CREATED);
+
+        Long matrixId = results.get(0).getFilmId();
+        assertThat(filmStorage.findById(matrixId)).get().extracting(Film::getName).isEqualTo("Матрица");
+        assertThat(filmGenresDbStorage.getGenreIdsOfFilm(matrixId)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(filmStorage.findById(results.get(5).getFilmId())).isPresent();
+        assertThat(filmStorage.findAll()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Фильмы сверх одной порции вставляются несколькими пакетами")
+    void importFilms_Should_Insert_Several_Chunks_Test() {
+        // given
+        int filmsCount = FilmBulkImporter.IMPORT_CHUNK_SIZE + 10;
+        String[] lines = new String[filmsCount];
+        for (int i = 0; i < filmsCount; i++) {
+            lines[i] = film("Фильм " + i, "2000-01-01", 1, "{\"id\":" + (i % 6 + 1) + "}");
+        }
+        // when
+        List<FilmImportResult> results = importer.importFilms(ndjson(lines));
+        // then
+        assertThat(results)
+                .hasSize(filmsCount)
+                .allMatch(result -> result.getStatus() == BatchItemStatus.CREATED && result.getFilmId() != null);
+        assertThat(filmStorage.findAll()).hasSize(filmsCount);
+        assertThat(filmGenresDbStorage.getGenresIdsOfAllFilms()).hasSize(filmsCount);
+    }
+
+    @Test
+    @DisplayName("Ошибка записи порции помечает её строки как FAILED, следующие порции импортируются")
+    void importFilms_Should_Mark_Failed_Chunk_And_Continue_Test() {
+        // given
+        int filmsCount = FilmBulkImporter.IMPORT_CHUNK_SIZE + 10;
+        String[] lines = new String[filmsCount];
+        lines[0] = film("Ф".repeat(300), "2000-01-01", 1, "");
+        for (int i = 1; i < filmsCount; i++) {
+            lines[i] = film("Фильм " + i, "2000-01-01", 1, "");
+        }
+        // when
+        List<FilmImportResult> results = importer.importFilms(ndjson(lines));
+        // then
+        assertThat(results).hasSize(filmsCount);
+        assertThat(results.subList(0, FilmBulkImporter.IMPORT_CHUNK_SIZE))
+                .allMatch(result -> result.getStatus() == BatchItemStatus.FAILED && result.getFilmId() == null);
+        assertThat(results.subList(FilmBulkImporter.IMPORT_CHUNK_SIZE, filmsCount))
+                .allMatch(result -> result.getStatus() == BatchItemStatus.CREATED && result.getFilmId() != null);
+        assertThat(filmStorage.findAll()).hasSize(10);
+    }
+
+    @Test
+    @DisplayName("Строки сверх лимита не читаются, в результат попадает одна ошибка о превышении")
+    void importFilms_Should_Stop_At_Line_Limit_Test() {
+        // given
+        String[] lines = new String[FilmBulkImporter.MAX_IMPORT_LINES + 2];
+        Arrays.fill(lines, "");
+        lines[0] = film("Матрица", "1999-03-31", 4, "");
+        lines[FilmBulkImporter.MAX_IMPORT_LINES] = film("Сверх лимита", "2000-01-01", 1, "");
+        lines[FilmBulkImporter.MAX_IMPORT_LINES + 1] = film("Ещё одна", "2000-01-01", 1, "");
+        // when
+        List<FilmImportResult> results = importer.importFilms(ndjson(lines));
+        // then
+        assertThat(results).extracting(FilmImportResult::getLine)
+                .containsExactly(1, FilmBulkImporter.MAX_IMPORT_LINES + 1);
+        assertThat(results).extracting(FilmImportResult::getStatus)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.INVALID);
+        assertThat(filmStorage.findAll()).hasSize(1);
+    }
+}
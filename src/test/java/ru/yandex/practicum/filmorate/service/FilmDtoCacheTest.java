@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmDtoCache")
+class FilmDtoCacheTest {
+    private static final Long FILM_ID = 1L;
+    private static final long VERSION = 3L;
+
+    private MeterRegistry meterRegistry;
+    private FilmDtoCache filmDtoCache;
+    private AtomicInteger loads;
+    private Function<Long, FilmDto> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filmDtoCache = new FilmDtoCache(meterRegistry, 100, Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+        loader = filmId -> {
+            loads.incrementAndGet();
+            return FilmDto.builder()
+                    .id(filmId)
+                    .name("Film " + filmId)
+                    .likesCount(5)
+                    .build();
+        };
+    }
+
+    @Test
+    @DisplayName("Повторное чтение берётся из кэша, попадания и промахи попадают в метрики")
+    void get_Should_Load_Once_And_Record_Hits_And_Misses_Test() {
+        // given, when
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        // then
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Отсутствующий фильм не кэшируется")
+    void get_Should_Not_Cache_Null_Test() {
+        // given, when
+        FilmDto first = filmDtoCache.get(FILM_ID, VERSION, filmId -> null);
+        FilmDto second = filmDtoCache.get(FILM_ID, VERSION, loader);
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Запись другой версии перезагружается и запоминается с новой версией")
+    void get_Should_Reload_Entry_Of_Other_Version_Test() {
+        // given
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        // when
+        filmDtoCache.get(FILM_ID, VERSION + 1, loader);
+        filmDtoCache.get(FILM_ID, VERSION + 1, loader);
+        // then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Лайк заменяет запись копией с новым числом лайков, уже выданный FilmDto не изменяется")
+    void onFilmLike_Should_Patch_Copy_Without_Mutating_Published_Dto_Test() {
+        // given
+        FilmDto published = filmDtoCache.get(FILM_ID, VERSION, loader);
+        // when
+        filmDtoCache.onFilmLike(new FilmLikeEvent(FILM_ID, 10L, true, LocalDateTime.now(), 6, VERSION + 1));
+        FilmDto patched = filmDtoCache.get(FILM_ID, VERSION + 1, loader);
+        // then
+        assertThat(loads).hasValue(1);
+        assertThat(patched).isNotSameAs(published);
+        assertThat(patched.getLikesCount()).isEqualTo(6);
+        assertThat(published.getLikesCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Лайк без состояния фильма или через пропущенную версию вытесняет запись")
+    void onFilmLike_Should_Invalidate_When_Patch_Is_Not_Safe_Test() {
+        // given
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        filmDtoCache.get(FILM_ID + 1, VERSION, loader);
+        // when
+        filmDtoCache.onFilmLike(new FilmLikeEvent(FILM_ID, 10L, true, LocalDateTime.now()));
+        filmDtoCache.onFilmLike(new FilmLikeEvent(FILM_ID + 1, 10L, true, LocalDateTime.now(), 6, VERSION + 2));
+        filmDtoCache.get(FILM_ID, VERSION + 1, loader);
+        filmDtoCache.get(FILM_ID + 1, VERSION + 2, loader);
+        // then
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Сброс кэша вытесняет все записи")
+    void invalidateAll_Should_Evict_All_Entries_Test() {
+        // given
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        filmDtoCache.get(FILM_ID + 1, VERSION, loader);
+        // when
+        filmDtoCache.invalidateAll();
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        filmDtoCache.get(FILM_ID + 1, VERSION, loader);
+        // then
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Изменение и удаление фильма вытесняют запись из кэша")
+    void onFilmChanged_And_OnFilmDeleted_Should_Invalidate_Test() {
+        // given
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        // when
+        filmDtoCache.onFilmChanged(new FilmChangedEvent(Film.builder().id(FILM_ID).build(), null));
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        filmDtoCache.onFilmDeleted(new FilmDeletedEvent(FILM_ID));
+        filmDtoCache.get(FILM_ID, VERSION, loader);
+        // then
+        assertThat(loads).hasValue(3);
+    }
+}
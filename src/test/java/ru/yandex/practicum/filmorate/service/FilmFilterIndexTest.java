@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FilmFilter;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaId;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import java.time.LocalDate;
+import java.util.Set;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmFilterIndex")
+class FilmFilterIndexTest {
+    private FilmFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmFilterIndex(null, null);
+        addFilm(1L, 1L, LocalDate.of(1999, 3, 31), 136, Set.of(1L, 2L));
+        addFilm(2L, 3L, LocalDate.of(2003, 5, 15), 138, Set.of(2L));
+        addFilm(3L, 3L, LocalDate.of(2003, 11, 5), 129, Set.of(1L, 2L, 4L));
+        addFilm(4L, 2L, LocalDate.of(1984, 10, 26), 107, Set.of(4L));
+        addFilm(5L, 1L, LocalDate.of(2010, 7, 16), 148, Set.of());
+    }
+
+    private void addFilm(Long id, Long mpaId, LocalDate releaseDate, int duration, Set<Long> genresIds) {
+        index.onFilmChanged(new FilmChangedEvent(Film.builder()
+                .id(id)
+                .name("Фильм " + id)
+                .releaseDate(releaseDate)
+                .duration(duration)
+                .mpa(new RatingMpaaId(mpaId))
+                .build(), genresIds));
+    }
+
+    @Test
+    @DisplayName("Фильм должен иметь все жанры из фильтра")
+    void findPage_Should_Require_All_Genres_Test() {
+        // given
+        FilmFilter filter = FilmFilter.builder()
+                .genreIds(Set.of(1L, 2L))
+                .build();
+        // when, then
+        assertThat(index.findPage(filter, 0, 10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Условия по рейтингу, датам и продолжительности объединяются через И")
+    void findPage_Should_Combine_Conditions_Test() {
+        // given
+        FilmFilter filter = FilmFilter.builder()
+                .mpaId(3L)
+                .releasedFrom(LocalDate.of(2003, 1, 1))
+                .releasedTo(LocalDate.of(2003, 12, 31))
+                .minDuration(130)
+                .build();
+        // when, then
+        assertThat(index.findPage(filter, 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Границы диапазона дат включаются")
+    void findPage_Should_Include_Range_Bounds_Test() {
+        // given
+        FilmFilter filter = FilmFilter.builder()
+                .releasedFrom(LocalDate.of(1984, 10, 26))
+                .releasedTo(LocalDate.of(2003, 5, 15))
+                .build();
+        // when, then
+        assertThat(index.findPage(filter, 0, 10)).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Страница начинается после курсора и ограничена limit")
+    void findPage_Should_Page_By_Cursor_Test() {
+        // given
+        FilmFilter filter = FilmFilter.builder()
+                .minDuration(100)
+                .build();
+        // when, then
+        assertThat(index.findPage(filter, 0, 2)).containsExactly(1L, 2L);
+        assertThat(index.findPage(filter, 2, 2)).containsExactly(3L, 4L);
+        assertThat(index.findPage(filter, 4, 2)).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Обновление фильма переносит его между битовыми картами и колонками")
+    void onFilmChanged_Should_Reindex_Film_Test() {
+        // given
+        addFilm(4L, 3L, LocalDate.of(2020, 1, 1), 90, Set.of(2L));
+        // when, then
+        assertThat(index.findPage(FilmFilter.builder().mpaId(2L).build(), 0, 10)).isEmpty();
+        assertThat(index.findPage(FilmFilter.builder().genreIds(Set.of(2L)).build(), 0, 10))
+                .containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.findPage(FilmFilter.builder().minDuration(100).build(), 0, 10))
+                .containsExactly(1L, 2L, 3L, 5L);
+    }
+
+    @Test
+    @DisplayName("Без списка жанров в событии сохраняются прежние жанры фильма")
+    void onFilmChanged_Should_Keep_Genres_When_Not_Changed_Test() {
+        // given
+        index.onFilmChanged(new FilmChangedEvent(Film.builder()
+                .id(3L)
+                .name("Фильм 3")
+                .releaseDate(LocalDate.of(2003, 11, 5))
+                .duration(129)
+                .mpa(new RatingMpaaId(3L))
+                .build(), null));
+        // when, then
+        assertThat(index.findPage(FilmFilter.builder().genreIds(Set.of(4L)).build(), 0, 10))
+                .containsExactly(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Удалённый фильм не попадает в выдачу")
+    void onFilmDeleted_Should_Remove_Film_Test() {
+        // given
+        index.onFilmDeleted(new FilmDeletedEvent(1L));
+        // when, then
+        assertThat(index.findPage(FilmFilter.builder().mpaId(1L).build(), 0, 10)).containsExactly(5L);
+        assertThat(index.findPage(FilmFilter.builder().minDuration(1).build(), 0, 10))
+                .containsExactly(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Пустой диапазон дат ничего не находит")
+    void findPage_Should_Return_Empty_For_Inverted_Range_Test() {
+        // given
+        FilmFilter filter = FilmFilter.builder()
+                .releasedFrom(LocalDate.of(2010, 1, 1))
+                .releasedTo(LocalDate.of(2000, 1, 1))
+                .build();
+        // when, then
+        assertThat(index.findPage(filter, 0, 10)).isEmpty();
+    }
+}
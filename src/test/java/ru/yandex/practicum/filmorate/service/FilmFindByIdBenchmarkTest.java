@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.LongFunction;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение задержки получения фильма по ID: четыре запроса в транзакции на запись
+ * против одного запроса с соединением рейтинга и агрегацией жанров.
+ * Запускается профилем benchmark: mvn test -Pbenchmark -Dtest=FilmFindByIdBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Бенчмарк получения фильма по ID")
+class FilmFindByIdBenchmarkTest {
+    private static final int FILMS_COUNT = 200;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private FilmGenresDbStorage filmGenresDbStorage;
+    @Autowired
+    private RatingMpaaService ratingMpaaService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Long> filmsIds;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 0; i < FILMS_COUNT; i++) {
+            films.add(new Object[]{"Film " + i, "Description", LocalDate.of(2000, 1, 1), 100, (long) (i % 5 + 1)});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO films (name, description, release_date, duration, rating_mpaa_id)
+                VALUES (?, ?, ?, ?, ?)
+                """, films);
+        filmsIds = jdbcTemplate.queryForList("SELECT id FROM films ORDER BY id", Long.class);
+
+        List<Object[]> filmGenres = new ArrayList<>();
+        for (int i = 0; i < filmsIds.size(); i++) {
+            for (long genreId = 1; genreId <= i % 4; genreId++) {
+                filmGenres.add(new Object[]{filmsIds.get(i), genreId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmGenres);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM films");
+    }
+
+    @Test
+    @DisplayName("Получение фильма одним запросом возвращает тот же результат, что и четыре запроса")
+    void singleQueryFindById_Should_Return_Same_Film_As_Multi_Query_Path_Test() {
+        // given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LongFunction<FilmDto> multiQueryFindById = filmId -> transaction.execute(status -> {
+            Film film = filmStorage.findById(filmId).orElseThrow();
+            FilmDto filmDto = FilmMapper.mapToDto(film);
+            GenreMapper.toDtoSet(filmGenresDbStorage.getGenresOfFilm(filmId))
+                    .forEach(filmDto.getGenres()::add);
+            filmDto.setMpa(ratingMpaaService.getRatingMpaaDtoById(film.getMpa().getId()));
+            filmDto.setLikesCount(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(user_id) FROM film_likes WHERE film_id = ?", Integer.class, filmId));
+            return filmDto;
+        });
+        LongFunction<FilmDto> singleQueryFindById = filmId -> filmStorage.findDtoById(filmId).orElseThrow();
+        // when
+        long[] multiQueryLatencies = measure(multiQueryFindById);
+        long[] singleQueryLatencies = measure(singleQueryFindById);
+        // then
+        log.info("Четыре запроса: p50 {} мкс, p99 {} мкс; один запрос: p50 {} мкс, p99 {} мкс",
+                percentile(multiQueryLatencies, 50) / 1_000, percentile(multiQueryLatencies, 99) / 1_000,
+                percentile(singleQueryLatencies, 50) / 1_000, percentile(singleQueryLatencies, 99) / 1_000);
+
+        for (Long filmId : filmsIds) {
+            FilmDto expected = multiQueryFindById.apply(filmId);
+            FilmDto actual = singleQueryFindById.apply(filmId);
+            assertThat(actual)
+                    .usingRecursiveComparison()
+                    .isEqualTo(expected);
+        }
+    }
+
+    private long[] measure(LongFunction<FilmDto> findById) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            filmsIds.forEach(findById::apply);
+        }
+        long[] latencies = new long[filmsIds.size() * MEASURED_ROUNDS];
+        int idx = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (Long filmId : filmsIds) {
+                long start = System.nanoTime();
+                findById.apply(filmId);
+                latencies[idx++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static long percentile(long[] sortedLatencies, int percentile) {
+        int idx = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, idx)];
+    }
+}
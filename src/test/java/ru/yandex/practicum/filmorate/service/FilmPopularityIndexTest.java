@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaId;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import ru.yandex.practicum.filmorate.model.Genre;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmPopularityIndex")
+class FilmPopularityIndexTest {
+    private static final Long FILM_ID = 1L;
+    private static final Long OTHER_FILM_ID = 2L;
+    private static final Long GENRE_ID = 3L;
+
+    private StubFilmStorage filmStorage;
+    private StubFilmGenresStorage filmGenresDbStorage;
+    private FilmPopularityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new StubFilmStorage();
+        filmGenresDbStorage = new StubFilmGenresStorage();
+        index = new FilmPopularityIndex(new FilmLikesDbStorage(new JdbcTemplate()), filmGenresDbStorage, filmStorage);
+    }
+
+    private static Film film(Long filmId, int likesCount) {
+        return Film.builder()
+                .id(filmId)
+                .name("Фильм " + filmId)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new RatingMpaaId(1L))
+                .likesCount(likesCount)
+                .build();
+    }
+
+    private void like(Long filmId) {
+        index.onFilmLike(new FilmLikeEvent(filmId, 1L, true, LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Лайки, пришедшие во время перестроения, не теряются и не учитываются дважды")
+    void rebuild_Should_Reload_Films_Liked_During_Loading_Test() {
+        // given
+        filmStorage.scannedFilms.add(film(FILM_ID, 5));
+        filmStorage.scannedFilms.add(film(OTHER_FILM_ID, 0));
+        filmStorage.films.put(FILM_ID, film(FILM_ID, 5));
+        filmStorage.films.put(OTHER_FILM_ID, film(OTHER_FILM_ID, 1));
+        filmStorage.duringScan = () -> {
+            like(FILM_ID);
+            like(OTHER_FILM_ID);
+        };
+        filmGenresDbStorage.genres.put(OTHER_FILM_ID, List.of(new Genre(GENRE_ID, "Драма")));
+        // when
+        index.rebuild();
+        // then
+        assertThat(index.getLikesCount(FILM_ID)).isEqualTo(5);
+        assertThat(index.getLikesCount(OTHER_FILM_ID)).isEqualTo(1);
+        assertThat(index.getTopPopularFilmsIds(10, GENRE_ID, null, null))
+                .containsExactly(Map.entry(OTHER_FILM_ID, 1));
+    }
+
+    @Test
+    @DisplayName("После перестроения лайки снова применяются к индексу как изменения")
+    void onFilmLike_Should_Change_Likes_After_Rebuild_Test() {
+        // given
+        filmStorage.scannedFilms.add(film(FILM_ID, 2));
+        index.rebuild();
+        // when
+        like(FILM_ID);
+        // then
+        assertThat(index.getTopPopularFilmsIds(10)).containsExactly(Map.entry(FILM_ID, 3));
+    }
+
+    /**
+     * Хранилище фильмов без БД: полный обход видит scannedFilms и затем вызывает duringScan,
+     * а выборка по ID видит films — состояние после коммитов, случившихся во время обхода.
+     */
+    private static final class StubFilmStorage implements FilmStorage {
+        final List<Film> scannedFilms = new ArrayList<>();
+        final Map<Long, Film> films = new HashMap<>();
+        Runnable duringScan = () -> {
+        };
+
+        @Override
+        public void forEach(Consumer<Film> consumer) {
+            scannedFilms.forEach(consumer);
+            duringScan.run();
+        }
+
+        @Override
+        public List<Film> findBySeveralIds(List<Long> filmsIds) {
+            return filmsIds.stream()
+                    .filter(films::containsKey)
+                    .map(films::get)
+                    .toList();
+        }
+
+        @Override
+        public Film create(Film film) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Film> createAll(List<Film> films) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(Film film) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean delete(Long filmId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Film> findById(Long filmId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<Long> findVersion(Long filmId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<FilmDto> findDtoById(Long filmId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Film> findAll() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Film> findPage(long afterId, int limit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isFilmExists(Long filmId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Long> findExistingIds(Collection<Long> filmsIds) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class StubFilmGenresStorage extends FilmGenresDbStorage {
+        final Map<Long, List<Genre>> genres = new HashMap<>();
+
+        StubFilmGenresStorage() {
+            super(new JdbcTemplate());
+        }
+
+        @Override
+        public Map<Long, Set<Long>> getGenresIdsOfAllFilms() {
+            return Map.of();
+        }
+
+        @Override
+        public Map<Long, List<Genre>> getGenresByFilmsIds(Set<Long> filmsIds) {
+            Map<Long, List<Genre>> result = new HashMap<>(genres);
+            result.keySet().retainAll(filmsIds);
+            return result;
+        }
+    }
+}
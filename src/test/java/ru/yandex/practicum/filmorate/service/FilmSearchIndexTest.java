@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmSearchIndex")
+class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FilmSearchIndex(null);
+        addFilm(1L, "Терминатор", "Киборг-убийца отправлен из будущего.");
+        addFilm(2L, "Терминатор 2: Судный день", "Киборг защищает Джона Коннора.");
+        addFilm(3L, "The Matrix", "A hacker learns the truth about reality.");
+        addFilm(4L, "Матрица", "Хакер узнаёт правду о мире, где правят машины.");
+        addFilm(5L, "Чужой", "Экипаж корабля встречает инопланетного хищника. Терминатор здесь ни при чём.");
+    }
+
+    private void addFilm(Long id, String name, String description) {
+        index.onFilmChanged(new FilmChangedEvent(Film.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .build(), null));
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии ранжируется выше совпадения в описании")
+    void search_Should_Rank_Name_Matches_Above_Description_Matches_Test() {
+        // given, when, then
+        assertThat(index.search("терминатор", 10)).containsExactly(1L, 2L, 5L);
+    }
+
+    @Test
+    @DisplayName("Запрос находит другие словоформы и ищет по префиксу")
+    void search_Should_Match_Word_Forms_And_Prefixes_Test() {
+        // given, when, then
+        assertThat(index.search("терминатора", 10)).startsWith(1L, 2L);
+        assertThat(index.search("матр", 10)).containsExactly(4L);
+        assertThat(index.search("matr", 10)).containsExactly(3L);
+        assertThat(index.search("hackers", 10)).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Несколько термов запроса суммируют релевантность")
+    void search_Should_Sum_Scores_Of_Query_Terms_Test() {
+        // given, when, then
+        assertThat(index.search("терминатор судный", 10)).first().isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Результат ограничен limit")
+    void search_Should_Respect_Limit_Test() {
+        // given, when, then
+        assertThat(index.search("терминатор", 2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Изменение фильма переиндексирует его, удаление убирает из выдачи")
+    void onFilmChanged_And_OnFilmDeleted_Should_Update_Index_Test() {
+        // given
+        addFilm(3L, "Dune", "Desert planet.");
+        index.onFilmDeleted(new FilmDeletedEvent(1L));
+        // when, then
+        assertThat(index.search("matrix", 10)).isEmpty();
+        assertThat(index.search("dune", 10)).containsExactly(3L);
+        assertThat(index.search("терминатор", 10)).containsExactly(2L, 5L);
+    }
+
+    @Test
+    @DisplayName("Запрос без термов возвращает пустой результат")
+    void search_Should_Return_Empty_For_Blank_Query_Test() {
+        // given, when, then
+        assertThat(index.search("  ?! ", 10)).isEmpty();
+    }
+}
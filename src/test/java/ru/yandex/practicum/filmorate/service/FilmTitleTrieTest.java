@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dto.FilmSuggestionDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmChangedEvent;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.time.LocalDateTime;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmTitleTrie")
+class FilmTitleTrieTest {
+    private FilmTitleTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new FilmTitleTrie(null);
+        addFilm(1L, "Матрица", 5);
+        addFilm(2L, "Матрица: Перезагрузка", 3);
+        addFilm(3L, "Матрица: Революция", 7);
+        addFilm(4L, "The Matrix", 1);
+        addFilm(5L, "Ёлки", 0);
+    }
+
+    private void addFilm(Long id, String name, int likesCount) {
+        trie.onFilmChanged(new FilmChangedEvent(Film.builder()
+                .id(id)
+                .name(name)
+                .likesCount(likesCount)
+                .build(), null));
+    }
+
+    private void like(Long filmId, boolean liked, int times) {
+        for (int i = 0; i < times; i++) {
+            trie.onFilmLike(new FilmLikeEvent(filmId, 100L + i, liked, LocalDateTime.now()));
+        }
+    }
+
+    private static List<Long> ids(List<FilmSuggestionDto> suggestions) {
+        return suggestions.stream()
+                .map(FilmSuggestionDto::getId)
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Подсказки по префиксу отсортированы по убыванию лайков")
+    void suggest_Should_Rank_By_Likes_Test() {
+        // given, when
+        List<FilmSuggestionDto> suggestions = trie.suggest("мат", 10);
+        // then
+        assertThat(ids(suggestions)).containsExactly(3L, 1L, 2L);
+        assertThat(suggestions.getFirst()).isEqualTo(new FilmSuggestionDto(3L, "Матрица: Революция", 7));
+    }
+
+    @Test
+    @DisplayName("Префикс ищется с начала любого слова, без учёта регистра и «ё»")
+    void suggest_Should_Match_Any_Word_Case_Insensitive_Test() {
+        // given, when, then
+        assertThat(ids(trie.suggest("перез", 10))).containsExactly(2L);
+        assertThat(ids(trie.suggest("MATR", 10))).containsExactly(4L);
+        assertThat(ids(trie.suggest("елк", 10))).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Префикс, набранный в другой раскладке, находит фильм")
+    void suggest_Should_Retry_In_Other_Keyboard_Layout_Test() {
+        // given, when, then
+        assertThat(ids(trie.suggest("vfnhbw", 2))).containsExactly(3L, 1L);
+    }
+
+    @Test
+    @DisplayName("Лайки и их снятие перестраивают порядок подсказок")
+    void onFilmLike_Should_Reorder_Suggestions_Test() {
+        // given
+        like(2L, true, 5);
+        // when, then
+        assertThat(ids(trie.suggest("мат", 10))).containsExactly(2L, 3L, 1L);
+        like(2L, false, 6);
+        assertThat(ids(trie.suggest("мат", 10))).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Фильм, вытесненный из лучших, возвращается после снятия лайков с лидера")
+    void onFilmLike_Should_Restore_Film_Outside_Top_K_Test() {
+        // given
+        for (long id = 10; id < 10 + FilmTitleTrie.TOP_K + 5; id++) {
+            addFilm(id, "Film " + id, (int) id);
+        }
+        like(10L, true, 100);
+        // when, then
+        assertThat(trie.suggest("fil", 1).getFirst().getId()).isEqualTo(10L);
+        like(10L, false, 100);
+        assertThat(ids(trie.suggest("fil", 3))).containsExactly(24L, 23L, 22L);
+    }
+
+    @Test
+    @DisplayName("Переименование и удаление фильма обновляют подсказки")
+    void onFilmChanged_And_OnFilmDeleted_Should_Update_Suggestions_Test() {
+        // given
+        addFilm(3L, "Дюна", 0);
+        trie.onFilmDeleted(new FilmDeletedEvent(1L));
+        // when, then
+        assertThat(ids(trie.suggest("мат", 10))).containsExactly(2L);
+        assertThat(trie.suggest("дю", 10)).containsExactly(new FilmSuggestionDto(3L, "Дюна", 7));
+    }
+
+    @Test
+    @DisplayName("Удаление фильма со сжатого ребра не теряет фильмы с тем же началом названия")
+    void onFilmDeleted_Should_Keep_Films_Sharing_Compressed_Edge_Test() {
+        // given
+        trie.onFilmDeleted(new FilmDeletedEvent(1L));
+        trie.onFilmDeleted(new FilmDeletedEvent(3L));
+        // when, then
+        assertThat(ids(trie.suggest("матрица", 10))).containsExactly(2L);
+        assertThat(ids(trie.suggest("матрица п", 10))).containsExactly(2L);
+        assertThat(trie.suggest("матрица р", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Префикс длиннее ключа дерева сверяется с полным названием")
+    void suggest_Should_Filter_Prefix_Longer_Than_Key_Test() {
+        // given
+        addFilm(6L, "Очень длинное название фильма", 2);
+        addFilm(7L, "Очень длинное название сериала", 1);
+        // when, then
+        assertThat("очень длинное назван").hasSize(FilmTitleTrie.MAX_KEY_LENGTH);
+        assertThat(ids(trie.suggest("очень длинное название", 10))).containsExactly(6L, 7L);
+        assertThat(ids(trie.suggest("очень длинное название с", 10))).containsExactly(7L);
+        assertThat(ids(trie.suggest("длинное название фил", 10))).containsExactly(6L);
+    }
+
+    @Test
+    @DisplayName("Пустой префикс и неизвестный префикс не дают подсказок")
+    void suggest_Should_Return_Empty_For_Blank_Or_Unknown_Prefix_Test() {
+        // given, when, then
+        assertThat(trie.suggest(" ", 10)).isEmpty();
+        assertThat(trie.suggest("zzz", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,224 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import ru.yandex.practicum.filmorate.model.TrendingWindow;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FilmTrendingIndex")
+class FilmTrendingIndexTest {
+    private static final Instant START = Instant.parse("2024-05-01T12:00:00Z");
+    private static final Long FILM_ID = 1L;
+    private static final Long OTHER_FILM_ID = 2L;
+
+    private MutableClock clock;
+    private StubFilmLikesStorage storage;
+    private FilmTrendingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        storage = new StubFilmLikesStorage();
+        index = new FilmTrendingIndex(storage, clock);
+    }
+
+    private void like(Long filmId, Duration ago) {
+        index.onFilmLike(new FilmLikeEvent(filmId, 1L, true, LocalDateTime.now(clock).minus(ago)));
+    }
+
+    private Map<Long, Integer> trending(TrendingWindow window) {
+        return index.getTrendingFilmsIds(window, 10);
+    }
+
+    @Test
+    @DisplayName("Свежий лайк попадает во все окна")
+    void getTrendingFilmsIds_Should_Count_Fresh_Like_In_All_Windows_Test() {
+        // given, when
+        like(FILM_ID, Duration.ZERO);
+        // then
+        assertThat(trending(TrendingWindow.HOUR)).containsExactly(Map.entry(FILM_ID, 1));
+        assertThat(trending(TrendingWindow.DAY)).containsExactly(Map.entry(FILM_ID, 1));
+        assertThat(trending(TrendingWindow.WEEK)).containsExactly(Map.entry(FILM_ID, 1));
+    }
+
+    @Test
+    @DisplayName("Пятиминутная корзина выходит из часового окна ровно через 12 корзин")
+    void getTrendingFilmsIds_Should_Drop_Fine_Bucket_At_Hour_Edge_Test() {
+        // given
+        like(FILM_ID, Duration.ZERO);
+        // when
+        clock.advance(Duration.ofMinutes(59));
+        Map<Long, Integer> beforeEdge = trending(TrendingWindow.HOUR);
+        clock.advance(Duration.ofMinutes(1));
+        Map<Long, Integer> atEdge = trending(TrendingWindow.HOUR);
+        // then
+        assertThat(beforeEdge).containsEntry(FILM_ID, 1);
+        assertThat(atEdge).isEmpty();
+        assertThat(trending(TrendingWindow.DAY)).containsEntry(FILM_ID, 1);
+    }
+
+    @Test
+    @DisplayName("Часовые корзины выходят из окон в сутки и неделю на их границах")
+    void getTrendingFilmsIds_Should_Drop_Coarse_Bucket_At_Day_And_Week_Edges_Test() {
+        // given
+        like(FILM_ID, Duration.ZERO);
+        // when
+        clock.advance(Duration.ofHours(24));
+        Map<Long, Integer> dayAfter = trending(TrendingWindow.DAY);
+        Map<Long, Integer> weekAfterDay = trending(TrendingWindow.WEEK);
+        clock.advance(Duration.ofDays(6));
+        Map<Long, Integer> weekAfter = trending(TrendingWindow.WEEK);
+        // then
+        assertThat(dayAfter).isEmpty();
+        assertThat(weekAfterDay).containsEntry(FILM_ID, 1);
+        assertThat(weekAfter).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Лайки из разных пятиминутных корзин одного часа сливаются в одну часовую корзину")
+    void getTrendingFilmsIds_Should_Merge_Fine_Buckets_Into_Coarse_Bucket_Test() {
+        // given
+        like(FILM_ID, Duration.ZERO);
+        clock.advance(Duration.ofMinutes(10));
+        like(FILM_ID, Duration.ZERO);
+        clock.advance(Duration.ofMinutes(40));
+        like(FILM_ID, Duration.ZERO);
+        // when
+        clock.advance(Duration.ofMinutes(70));
+        // then
+        assertThat(trending(TrendingWindow.HOUR)).isEmpty();
+        assertThat(trending(TrendingWindow.DAY)).containsExactly(Map.entry(FILM_ID, 3));
+    }
+
+    @Test
+    @DisplayName("Ячейка кольца, занятая прошлым оборотом, обнуляется при повторном использовании")
+    void getTrendingFilmsIds_Should_Reset_Reused_Ring_Slot_Test() {
+        // given
+        like(FILM_ID, Duration.ZERO);
+        // when
+        clock.advance(Duration.ofHours(1));
+        like(FILM_ID, Duration.ZERO);
+        // then
+        assertThat(trending(TrendingWindow.HOUR)).containsExactly(Map.entry(FILM_ID, 1));
+        assertThat(trending(TrendingWindow.DAY)).containsExactly(Map.entry(FILM_ID, 2));
+    }
+
+    @Test
+    @DisplayName("Лайк из прошлого попадает только в окна, которые его накрывают, а старше недели не учитывается")
+    void onFilmLike_Should_Place_Past_Like_Into_Its_Buckets_Test() {
+        // given, when
+        like(FILM_ID, Duration.ofHours(2));
+        like(OTHER_FILM_ID, Duration.ofDays(8));
+        // then
+        assertThat(trending(TrendingWindow.HOUR)).isEmpty();
+        assertThat(trending(TrendingWindow.DAY)).containsExactly(Map.entry(FILM_ID, 1));
+        assertThat(trending(TrendingWindow.WEEK)).containsExactly(Map.entry(FILM_ID, 1));
+    }
+
+    @Test
+    @DisplayName("Снятие лайка и удаление фильма убирают его из трендов, порядок — по числу лайков")
+    void getTrendingFilmsIds_Should_Order_By_Likes_And_Respect_Unlike_And_Delete_Test() {
+        // given
+        like(FILM_ID, Duration.ZERO);
+        like(OTHER_FILM_ID, Duration.ZERO);
+        like(OTHER_FILM_ID, Duration.ZERO);
+        Map<Long, Integer> ordered = trending(TrendingWindow.HOUR);
+        // when
+        index.onFilmLike(new FilmLikeEvent(FILM_ID, 1L, false, LocalDateTime.now(clock)));
+        index.onFilmDeleted(new FilmDeletedEvent(OTHER_FILM_ID));
+        // then
+        assertThat(ordered).containsExactly(Map.entry(OTHER_FILM_ID, 2), Map.entry(FILM_ID, 1));
+        assertThat(trending(TrendingWindow.WEEK)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Лайки, пришедшие во время перестроения, не теряются и не учитываются дважды")
+    void rebuild_Should_Reload_Films_Liked_During_Loading_Test() {
+        // given
+        LocalDateTime likedAt = LocalDateTime.now(clock).minusMinutes(10);
+        storage.scannedLikes.put(FILM_ID, likedAt);
+        storage.likes.put(FILM_ID, likedAt);
+        storage.likes.put(OTHER_FILM_ID, likedAt);
+        storage.duringScan = () -> {
+            index.onFilmLike(new FilmLikeEvent(FILM_ID, 1L, true, likedAt));
+            index.onFilmLike(new FilmLikeEvent(OTHER_FILM_ID, 1L, true, likedAt));
+        };
+        // when
+        index.rebuild();
+        // then
+        assertThat(trending(TrendingWindow.HOUR)).containsOnly(Map.entry(FILM_ID, 1), Map.entry(OTHER_FILM_ID, 1));
+    }
+
+    /**
+     * Хранилище лайков без БД, по одному лайку на фильм: полный обход видит scannedLikes и затем
+     * вызывает duringScan, а перечитывание по фильмам видит likes — лайки, закоммиченные после обхода.
+     */
+    private static final class StubFilmLikesStorage extends FilmLikesDbStorage {
+        final Map<Long, LocalDateTime> scannedLikes = new HashMap<>();
+        final Map<Long, LocalDateTime> likes = new HashMap<>();
+        Runnable duringScan = () -> {
+        };
+
+        StubFilmLikesStorage() {
+            super(new JdbcTemplate());
+        }
+
+        @Override
+        public void forEachLikeSince(LocalDateTime since, BiConsumer<Long, LocalDateTime> consumer) {
+            scannedLikes.forEach(consumer);
+            duringScan.run();
+        }
+
+        @Override
+        public void forEachLikeOfFilmsSince(Set<Long> filmsIds, LocalDateTime since,
+                                            BiConsumer<Long, LocalDateTime> consumer) {
+            likes.forEach((filmId, likedAt) -> {
+                if (filmsIds.contains(filmId)) {
+                    consumer.accept(filmId, likedAt);
+                }
+            });
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
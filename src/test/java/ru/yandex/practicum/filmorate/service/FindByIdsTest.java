@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmGenresDbStorage;
+import ru.yandex.practicum.filmorate.dto.ByIdsResponse;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.GenreDto;
+import ru.yandex.practicum.filmorate.dto.RatingMpaaId;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserStorage;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Тесты получения фильмов и пользователей по списку ID")
+class FindByIdsTest {
+    @Autowired
+    private FilmService filmService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private FilmGenresDbStorage filmGenresDbStorage;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM film_genres");
+        jdbcTemplate.execute("DELETE FROM films");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    private Long createFilm(String name, long mpaId) {
+        return filmStorage.create(Film.builder()
+                .name(name)
+                .description("Описание")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new RatingMpaaId(mpaId))
+                .build()).getId();
+    }
+
+    private Long createUser(String login) {
+        return userStorage.create(User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build()).getId();
+    }
+
+    @Test
+    @DisplayName("Фильмы возвращаются в порядке запроса с жанрами и рейтингом, ненайденные ID — отдельно")
+    void findByIds_Should_Keep_Order_And_Report_Missing_Films_Test() {
+        // given
+        Long firstId = createFilm("Первый", 1L);
+        Long secondId = createFilm("Второй", 3L);
+        filmGenresDbStorage.insert(secondId, Set.of(1L, 2L));
+        long missingId = secondId + 1000;
+        // when
+        ByIdsResponse<FilmDto> response = filmService.findByIds(List.of(secondId, missingId, firstId, secondId));
+        // then
+        assertThat(response.getItems()).extracting(FilmDto::getId).containsExactly(secondId, firstId);
+        assertThat(response.getMissingIds()).containsExactly(missingId);
+        FilmDto second = response.getItems().getFirst();
+        assertThat(second.getMpa().getId()).isEqualTo(3L);
+        assertThat(second.getGenres()).extracting(GenreDto::getId).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Пользователи возвращаются в порядке запроса, ненайденные ID — отдельно")
+    void findByIds_Should_Keep_Order_And_Report_Missing_Users_Test() {
+        // given
+        Long firstId = createUser("first");
+        Long secondId = createUser("second");
+        long missingId = secondId + 1000;
+        // when
+        ByIdsResponse<UserDto> response = userService.findByIds(List.of(missingId, secondId, firstId));
+        // then
+        assertThat(response.getItems()).extracting(UserDto::getId).containsExactly(secondId, firstId);
+        assertThat(response.getMissingIds()).containsExactly(missingId);
+    }
+}
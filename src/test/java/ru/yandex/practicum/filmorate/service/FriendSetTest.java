@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.util.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты FriendSet")
+class FriendSetTest {
+
+    private static long[] toSortedArray(Collection<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static TreeSet<Long> randomIds(Random random, int count, long bound) {
+        TreeSet<Long> ids = new TreeSet<>();
+        while (ids.size() < count) {
+            ids.add(1 + (long) (random.nextDouble() * bound));
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Небольшое множество хранится массивом, большое — сжатым битовым индексом")
+    void of_Should_Pick_Representation_By_Size_Test() {
+        // given
+        long[] smallIds = toSortedArray(randomIds(new Random(1), 100, 1_000_000));
+        long[] largeIds = toSortedArray(randomIds(new Random(2), FriendSet.BITMAP_THRESHOLD + 1, 1_000_000));
+        // when, then
+        assertThat(FriendSet.of(smallIds)).isInstanceOf(SortedArrayFriendSet.class);
+        assertThat(FriendSet.of(largeIds)).isInstanceOf(RoaringFriendSet.class);
+        assertThat(FriendSet.of(largeIds).toArray()).containsExactly(largeIds);
+    }
+
+    @Test
+    @DisplayName("Добавление и удаление переключают представление и сохраняют содержимое")
+    void with_And_Without_Should_Match_Reference_Set_Test() {
+        // given
+        Random random = new Random(3);
+        TreeSet<Long> reference = new TreeSet<>();
+        FriendSet set = FriendSet.empty();
+        // when
+        for (int step = 0; step < 20_000; step++) {
+            long id = 1 + random.nextInt(200_000);
+            if (step < 12_000 || random.nextBoolean()) {
+                reference.add(id);
+                set = set.with(id);
+            } else {
+                reference.remove(id);
+                set = set.without(id);
+            }
+        }
+        // then
+        assertThat(set).isInstanceOf(RoaringFriendSet.class);
+        assertThat(set.size()).isEqualTo(reference.size());
+        assertThat(set.toArray()).containsExactly(toSortedArray(reference));
+        for (Long id : reference) {
+            set = set.without(id);
+        }
+        assertThat(set.size()).isZero();
+        assertThat(set).isInstanceOf(SortedArrayFriendSet.class);
+    }
+
+    @Test
+    @DisplayName("Пересечение, объединение и подсчёт совпадают для всех сочетаний представлений")
+    void and_Or_AndCardinality_Should_Match_Reference_Sets_Test() {
+        // given
+        Random random = new Random(4);
+        List<TreeSet<Long>> references = List.of(
+                randomIds(random, 500, 300_000),
+                randomIds(random, 3_000, 300_000),
+                randomIds(random, 20_000, 300_000),
+                randomIds(random, 100_000, 300_000));
+        // when, then
+        for (TreeSet<Long> left : references) {
+            for (TreeSet<Long> right : references) {
+                FriendSet leftSet = FriendSet.of(toSortedArray(left));
+                FriendSet rightSet = FriendSet.of(toSortedArray(right));
+                TreeSet<Long> intersection = new TreeSet<>(left);
+                intersection.retainAll(right);
+                TreeSet<Long> union = new TreeSet<>(left);
+                union.addAll(right);
+
+                assertThat(leftSet.and(rightSet).toArray()).containsExactly(toSortedArray(intersection));
+                assertThat(leftSet.andCardinality(rightSet)).isEqualTo(intersection.size());
+                assertThat(leftSet.or(rightSet).toArray()).containsExactly(toSortedArray(union));
+                assertThat(leftSet.or(rightSet).size()).isEqualTo(union.size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Копирование первых ID идёт по возрастанию и ограничено maxCount")
+    void copyTo_Should_Copy_Smallest_Ids_Test() {
+        // given
+        long[] ids = toSortedArray(randomIds(new Random(5), 10_000, 1_000_000));
+        FriendSet set = FriendSet.of(ids);
+        long[] target = new long[105];
+        // when
+        int copied = set.copyTo(target, 5, 100);
+        // then
+        assertThat(copied).isEqualTo(100);
+        assertThat(Arrays.copyOfRange(target, 5, 105)).containsExactly(Arrays.copyOf(ids, 100));
+    }
+}
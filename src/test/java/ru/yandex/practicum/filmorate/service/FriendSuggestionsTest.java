@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FriendshipChangedEvent;
+import java.util.List;
+import java.util.Set;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@DisplayName("Тесты FriendSuggestions")
+class FriendSuggestionsTest {
+    private FriendshipGraph graph;
+    private FriendSuggestions suggestions;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FriendshipGraph(null);
+        suggestions = new FriendSuggestions(graph, 200, 500, 100, 10_000);
+    }
+
+    private void addFriend(long userId, long friendId) {
+        FriendshipChangedEvent event = new FriendshipChangedEvent(userId, friendId, true);
+        graph.onFriendshipChanged(event);
+        suggestions.onFriendshipChanged(event);
+    }
+
+    @Test
+    @DisplayName("Рекомендации ранжируются по числу общих друзей и не содержат друзей и самого пользователя")
+    void getSuggestions_Should_Rank_By_Mutual_Friends_Test() {
+        // given
+        addFriend(1, 2);
+        addFriend(1, 3);
+        addFriend(2, 1);
+        addFriend(2, 3);
+        addFriend(2, 4);
+        addFriend(2, 5);
+        addFriend(3, 5);
+        addFriend(3, 6);
+        // when
+        List<FriendSuggestions.Suggestion> result = suggestions.getSuggestions(1, 10);
+        // then
+        assertThat(result).containsExactly(
+                new FriendSuggestions.Suggestion(5, 2),
+                new FriendSuggestions.Suggestion(4, 1),
+                new FriendSuggestions.Suggestion(6, 1));
+        assertThat(suggestions.getSuggestions(1, 1)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Кэш сбрасывается при изменении друзей у друга пользователя")
+    void getSuggestions_Should_Be_Invalidated_When_Friend_Of_User_Changes_Test() {
+        // given
+        addFriend(1, 2);
+        addFriend(2, 3);
+        assertThat(suggestions.getSuggestions(1, 10))
+                .extracting(FriendSuggestions.Suggestion::userId)
+                .containsExactly(3L);
+        // when
+        addFriend(2, 4);
+        addFriend(1, 3);
+        // then
+        assertThat(suggestions.getSuggestions(1, 10))
+                .extracting(FriendSuggestions.Suggestion::userId)
+                .containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Рекомендации для пользователя с тысячами друзей считаются с ограничением обхода")
+    void getSuggestions_Should_Handle_User_With_Thousands_Of_Friends_Test() {
+        // given
+        int friendsCount = 2_000;
+        for (long friendId = 2; friendId < 2 + friendsCount; friendId++) {
+            graph.addFriend(1, friendId);
+            for (long candidateId = 100_000; candidateId < 100_300; candidateId++) {
+                graph.addFriend(friendId, candidateId + friendId % 1_000);
+            }
+        }
+        // when
+        long start = System.nanoTime();
+        List<FriendSuggestions.Suggestion> result = suggestions.getSuggestions(1, 10);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+        // then
+        log.info("Рекомендации для пользователя с {} друзьями: {} мкс", friendsCount, elapsedMicros);
+        assertThat(result).hasSize(10);
+        assertThat(result.get(0).mutualFriendsCount()).isLessThanOrEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("При ограничении обхода просматриваются не только друзья с наименьшими ID")
+    void getSuggestions_Should_Sample_Friends_Beyond_Lowest_Ids_Test() {
+        // given
+        long candidateId = 100_000;
+        for (long friendId = 2; friendId < 1_002; friendId++) {
+            graph.addFriend(1, friendId);
+            if (friendId >= 502) {
+                graph.addFriend(friendId, candidateId);
+            }
+        }
+        // when
+        List<FriendSuggestions.Suggestion> result = suggestions.getSuggestions(1, 10);
+        // then
+        assertThat(result)
+                .singleElement()
+                .satisfies(suggestion -> {
+                    assertThat(suggestion.userId()).isEqualTo(candidateId);
+                    assertThat(suggestion.mutualFriendsCount()).isBetween(1, 200);
+                });
+    }
+
+    @Test
+    @DisplayName("Сброс записи кэша убирает все её связи с просмотренными друзьями")
+    void onFriendshipChanged_Should_Untrack_Invalidated_Users_Test() {
+        // given
+        addFriend(1, 10);
+        addFriend(1, 11);
+        suggestions.getSuggestions(1, 10);
+        Set<Long> trackedBefore = suggestions.getTrackedFriendsIds();
+        // when
+        addFriend(10, 12);
+        // then
+        assertThat(trackedBefore).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(suggestions.getTrackedFriendsIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Вытесненные из кэша пользователи не оставляют связей с друзьями")
+    void getSuggestions_Should_Untrack_Evicted_Users_Test() {
+        // given
+        suggestions = new FriendSuggestions(graph, 200, 500, 100, 1);
+        addFriend(1, 10);
+        addFriend(1, 11);
+        addFriend(2, 20);
+        // when
+        suggestions.getSuggestions(1, 10);
+        suggestions.getSuggestions(2, 10);
+        suggestions.cleanUp();
+        // then
+        assertThat(suggestions.getTrackedFriendsIds()).isIn(Set.of(10L, 11L), Set.of(20L));
+    }
+}
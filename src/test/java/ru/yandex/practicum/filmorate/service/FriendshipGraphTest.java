@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FriendshipDbStorage;
+import ru.yandex.practicum.filmorate.dal.UserDbStorage;
+import ru.yandex.practicum.filmorate.model.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.model.User;
+import java.time.LocalDate;
+import java.util.function.BiConsumer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Тесты FriendshipGraph")
+class FriendshipGraphTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserDbStorage userStorage;
+
+    private FriendshipDbStorage friendshipStorage;
+    private FriendshipGraph graph;
+    private long userId1;
+    private long userId2;
+    private long userId3;
+    private long userId4;
+    private int prefixEmail = 1;
+
+    @BeforeEach
+    void setUp() {
+        friendshipStorage = new FriendshipDbStorage(jdbcTemplate);
+        graph = new FriendshipGraph(friendshipStorage);
+        userId1 = createTestUser();
+        userId2 = createTestUser();
+        userId3 = createTestUser();
+        userId4 = createTestUser();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM friendship");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    private long createTestUser() {
+        User user = User.builder()
+                .email(String.format("%dgraph@test.com", prefixEmail++))
+                .login("testLogin")
+                .name("testName")
+                .birthday(LocalDate.now().minusYears(17))
+                .build();
+        return userStorage.create(user).getId();
+    }
+
+    @Test
+    @DisplayName("Граф загружается из БД с отсортированными списками друзей")
+    void rebuild_Should_Load_Sorted_Friends_From_Storage_Test() {
+        // given
+        friendshipStorage.addFriend(userId1, userId4);
+        friendshipStorage.addFriend(userId1, userId2);
+        friendshipStorage.addFriend(userId3, userId1);
+        // when
+        graph.rebuild();
+        // then
+        assertThat(graph.getFriendsIds(userId1)).containsExactly(userId2, userId4);
+        assertThat(graph.getFriendsIds(userId3)).containsExactly(userId1);
+        assertThat(graph.getFriendsIds(userId2)).isEmpty();
+        assertThat(graph.isFriend(userId1, userId4)).isTrue();
+        assertThat(graph.isFriend(userId4, userId1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Добавление и удаление друзей сохраняет порядок и не дублирует записи")
+    void onFriendshipChanged_Should_Keep_Friends_Sorted_Test() {
+        // given
+        graph.rebuild();
+        // when
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId4, true));
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId2, true));
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId3, true));
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId3, true));
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId2, false));
+        // then
+        assertThat(graph.getFriendsIds(userId1)).containsExactly(userId3, userId4);
+        assertThat(graph.getFriendsCount(userId1)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Общие друзья — пересечение отсортированных списков")
+    void getCommonFriendsIds_Should_Intersect_Friend_Lists_Test() {
+        // given
+        friendshipStorage.addFriend(userId1, userId3);
+        friendshipStorage.addFriend(userId1, userId4);
+        friendshipStorage.addFriend(userId2, userId4);
+        friendshipStorage.addFriend(userId2, userId1);
+        graph.rebuild();
+        // when, then
+        assertThat(graph.getCommonFriendsIds(userId1, userId2)).containsExactly(userId4);
+        assertThat(graph.getCommonFriendsIds(userId3, userId4)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Изменения, пришедшие во время перестроения, не теряются после подмены графа")
+    void rebuild_Should_Keep_Changes_Made_During_Loading_Test() {
+        // given
+        friendshipStorage.addFriend(userId1, userId2);
+        friendshipStorage.addFriend(userId1, userId3);
+        FriendshipDbStorage racingStorage = new FriendshipDbStorage(jdbcTemplate) {
+            @Override
+            public void forEachFriendship(BiConsumer<Long, Long> consumer) {
+                super.forEachFriendship(consumer);
+                graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId4, true));
+                graph.onFriendshipChanged(new FriendshipChangedEvent(userId1, userId2, false));
+            }
+        };
+        graph = new FriendshipGraph(racingStorage);
+        // when
+        graph.rebuild();
+        // then
+        assertThat(graph.getFriendsIds(userId1)).containsExactly(userId3, userId4);
+    }
+}
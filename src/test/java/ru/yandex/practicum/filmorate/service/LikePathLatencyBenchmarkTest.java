@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.model.FilmStorage;
+import ru.yandex.practicum.filmorate.model.UserStorage;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение задержки лайка с предварительными проверками существования (три запроса)
+ * и лайка условной вставкой FilmLikesDbStorage.addLike, которая проверяет всё в самом INSERT. Лайки обоих путей перемешаны и выполняются
+ * одним пулом потоков, поэтому оба пути измеряются под одной и той же нагрузкой.
+ * Лайки пишутся прямо в хранилище, без событий, чтобы не оставлять их в индексах в памяти.
+ * Запускается профилем benchmark: mvn test -Pbenchmark -Dtest=LikePathLatencyBenchmarkTest
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DisplayName("Бенчмарк пути добавления лайка")
+class LikePathLatencyBenchmarkTest {
+    private static final int FILMS_PER_PATH = 20;
+    private static final int USERS_COUNT = 50;
+    private static final int THREADS = 8;
+    private static final String ADD_LIKE_IF_NOT_EXISTS_QUERY = """
+            INSERT INTO film_likes (film_id, user_id, liked_at)
+            SELECT ?, ?, CURRENT_TIMESTAMP
+            WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)
+            """;
+    private static final String INCREMENT_LIKES_COUNT_QUERY = """
+            UPDATE films
+            SET likes_count = likes_count + 1, version = version + 1
+            WHERE id = ?
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FilmStorage filmStorage;
+    @Autowired
+    private UserStorage userStorage;
+    @Autowired
+    private FilmLikesDbStorage filmLikesDbStorage;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private List<Long> checkedPathFilmsIds;
+    private List<Long> conditionalPathFilmsIds;
+    private List<Long> usersIds;
+
+    private record Sample(boolean conditionalPath, long nanos) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS_COUNT; i++) {
+            users.add(new Object[]{"latency" + i + "@test.com", "login" + i, "name" + i, LocalDate.of(1990, 1, 1)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)", users);
+        List<Object[]> films = new ArrayList<>();
+        for (int i = 0; i < FILMS_PER_PATH * 2; i++) {
+            films.add(new Object[]{"Film " + i, "Description", LocalDate.of(2000, 1, 1), 100, 1L});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO films (name, description, release_date, duration, rating_mpaa_id)
+                VALUES (?, ?, ?, ?, ?)
+                """, films);
+
+        usersIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<Long> filmsIds = jdbcTemplate.queryForList("SELECT id FROM films ORDER BY id", Long.class);
+        checkedPathFilmsIds = filmsIds.subList(0, FILMS_PER_PATH);
+        conditionalPathFilmsIds = filmsIds.subList(FILMS_PER_PATH, filmsIds.size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM film_likes");
+        jdbcTemplate.execute("DELETE FROM films");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    @Test
+    @DisplayName("Лайк условной вставкой применяет те же лайки, что и лайк с проверками")
+    void conditionalInsertLike_Should_Apply_All_Likes_Under_Concurrent_Load_Test() throws Exception {
+        // given
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        BiConsumer<Long, Long> checkedLike = (filmId, userId) -> transaction.executeWithoutResult(status -> {
+            if (filmStorage.isFilmExists(filmId) && userStorage.isUserExists(userId)
+                    && jdbcTemplate.update(ADD_LIKE_IF_NOT_EXISTS_QUERY, filmId, userId, filmId, userId) > 0) {
+                jdbcTemplate.update(INCREMENT_LIKES_COUNT_QUERY, filmId);
+            }
+        });
+        BiConsumer<Long, Long> conditionalLike = (filmId, userId) ->
+                filmLikesDbStorage.addLike(filmId, userId, LocalDateTime.now());
+        List<Callable<Sample>> tasks = new ArrayList<>();
+        addTasks(tasks, checkedPathFilmsIds, false, checkedLike);
+        addTasks(tasks, conditionalPathFilmsIds, true, conditionalLike);
+        Collections.shuffle(tasks, new Random(42));
+        // when
+        List<Sample> samples = runConcurrently(tasks);
+        long[] checkedLatencies = latencies(samples, false);
+        long[] conditionalLatencies = latencies(samples, true);
+        // then
+        log.info("Лайк с проверками: p50 {} мкс, p99 {} мкс; лайк условной вставкой: p50 {} мкс, p99 {} мкс",
+                percentile(checkedLatencies, 50) / 1_000, percentile(checkedLatencies, 99) / 1_000,
+                percentile(conditionalLatencies, 50) / 1_000, percentile(conditionalLatencies, 99) / 1_000);
+
+        int expectedLikes = FILMS_PER_PATH * USERS_COUNT;
+        assertThat(countLikes(checkedPathFilmsIds)).isEqualTo(expectedLikes);
+        assertThat(countLikes(conditionalPathFilmsIds)).isEqualTo(expectedLikes);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(likes_count) FROM films", Integer.class))
+                .isEqualTo(expectedLikes * 2);
+    }
+
+    private void addTasks(List<Callable<Sample>> tasks, List<Long> filmsIds, boolean conditionalPath,
+                          BiConsumer<Long, Long> like) {
+        for (Long filmId : filmsIds) {
+            for (Long userId : usersIds) {
+                tasks.add(() -> {
+                    long start = System.nanoTime();
+                    like.accept(filmId, userId);
+                    return new Sample(conditionalPath, System.nanoTime() - start);
+                });
+            }
+        }
+    }
+
+    private List<Sample> runConcurrently(List<Callable<Sample>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Sample> samples = new ArrayList<>();
+            for (Future<Sample> future : executor.invokeAll(tasks)) {
+                samples.add(future.get());
+            }
+            return samples;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long[] latencies(List<Sample> samples, boolean conditionalPath) {
+        return samples.stream()
+                .filter(sample -> sample.conditionalPath() == conditionalPath)
+                .mapToLong(Sample::nanos)
+                .sorted()
+                .toArray();
+    }
+
+    private int countLikes(List<Long> filmsIds) {
+        return filmsIds.stream()
+                .mapToInt(filmId -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM film_likes WHERE film_id = ?", Integer.class, filmId))
+                .sum();
+    }
+
+    private static long percentile(long[] sortedLatencies, int percentile) {
+        int idx = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, idx)];
+    }
+}
@@ -0,0 +1,204 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.FilmLikesDbStorage;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmLikeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Тесты LikesWriteBehindBuffer")
+class LikesWriteBehindBufferTest {
+    private static final int CAPACITY = 3;
+    private static final int BATCH_SIZE = 100;
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+    private static final long OFFER_TIMEOUT_MS = 50;
+
+    private StubFilmLikesStorage storage;
+    private MeterRegistry meterRegistry;
+    private List<Object> events;
+    private LikesWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        storage = new StubFilmLikesStorage();
+        meterRegistry = new SimpleMeterRegistry();
+        events = new ArrayList<>();
+        buffer = new LikesWriteBehindBuffer(storage, events::add, meterRegistry,
+                CAPACITY, BATCH_SIZE, FLUSH_INTERVAL_MS, OFFER_TIMEOUT_MS);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    @DisplayName("При заполненном буфере новая операция отклоняется по таймауту, повтор уже ожидающей — нет")
+    void enqueue_Should_Reject_New_Operation_When_Full_Test() {
+        // given
+        buffer.enqueue(1L, 1L, true);
+        buffer.enqueue(1L, 2L, true);
+        buffer.enqueue(1L, 3L, true);
+        // when, then
+        assertThatThrownBy(() -> buffer.enqueue(2L, 1L, true))
+                .isInstanceOf(ServiceUnavailableException.class);
+        buffer.enqueue(1L, 2L, false);
+        assertThat(buffer.getQueueDepth()).isEqualTo(CAPACITY);
+        assertThat(counter("filmorate.likes.write_behind.rejected")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Место в буфере освобождается после записи пачки")
+    void enqueue_Should_Accept_Operations_After_Flush_Test() {
+        // given
+        buffer.enqueue(1L, 1L, true);
+        buffer.enqueue(1L, 2L, true);
+        buffer.enqueue(1L, 3L, true);
+        // when
+        buffer.flush();
+        buffer.enqueue(2L, 1L, true);
+        // then
+        assertThat(buffer.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Лайк и следующее за ним снятие лайка схлопываются в одно снятие")
+    void flush_Should_Keep_Only_Last_Operation_Per_Like_Test() {
+        // given
+        buffer.enqueue(1L, 1L, true);
+        buffer.enqueue(1L, 1L, false);
+        // when
+        buffer.flush();
+        // then
+        assertThat(storage.added).isEmpty();
+        assertThat(storage.deleted).containsExactly(List.of(new FilmLike(1L, 1L)));
+        assertThat(events)
+                .singleElement()
+                .extracting(event -> ((FilmLikeEvent) event).isLiked())
+                .isEqualTo(false);
+        assertThat(counter("filmorate.likes.write_behind.flushed")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Если пачка не записалась, лайки пишутся по одному, а ошибочный возвращается в буфер")
+    void flush_Should_Fall_Back_To_Single_Writes_When_Batch_Fails_Test() {
+        // given
+        FilmLike broken = new FilmLike(1L, 2L);
+        storage.failing = chunk -> chunk.size() > 1 || chunk.contains(broken);
+        buffer.enqueue(1L, 1L, true);
+        buffer.enqueue(1L, 2L, true);
+        buffer.enqueue(1L, 3L, true);
+        // when
+        buffer.flush();
+        // then
+        assertThat(events)
+                .extracting(event -> ((FilmLikeEvent) event).getUserId())
+                .containsExactly(1L, 3L);
+        assertThat(counter("filmorate.likes.write_behind.failed")).isEqualTo(1);
+        assertThat(buffer.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Лайк, не записанный за все попытки, отбрасывается и учитывается в метрике")
+    void flush_Should_Dead_Letter_Like_After_All_Attempts_Test() {
+        // given
+        FilmLike broken = new FilmLike(1L, 2L);
+        storage.failing = chunk -> chunk.contains(broken);
+        buffer.enqueue(1L, 2L, true);
+        // when
+        for (int attempt = 0; attempt < LikesWriteBehindBuffer.MAX_WRITE_ATTEMPTS; attempt++) {
+            buffer.flush();
+        }
+        // then
+        assertThat(counter("filmorate.likes.write_behind.failed"))
+                .isEqualTo(LikesWriteBehindBuffer.MAX_WRITE_ATTEMPTS);
+        assertThat(counter("filmorate.likes.write_behind.dead_lettered")).isEqualTo(1);
+        assertThat(buffer.getQueueDepth()).isZero();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Повторная попытка записи лайка проходит, если сбой был временным")
+    void flush_Should_Retry_Failed_Like_On_Next_Flush_Test() {
+        // given
+        storage.failing = chunk -> true;
+        buffer.enqueue(1L, 2L, true);
+        buffer.flush();
+        storage.failing = chunk -> false;
+        // when
+        buffer.flush();
+        // then
+        assertThat(storage.added).containsExactly(List.of(new FilmLike(1L, 2L)));
+        assertThat(counter("filmorate.likes.write_behind.dead_lettered")).isZero();
+        assertThat(buffer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Операция, не меняющая состояние лайка с учётом буфера, не ставится в очередь")
+    void enqueueIfChanged_Should_Account_For_Pending_Operations_Test() {
+        // given, when, then
+        assertThat(buffer.enqueueIfChanged(1L, 1L, true, true)).isFalse();
+        assertThat(buffer.enqueueIfChanged(1L, 1L, false, false)).isFalse();
+        assertThat(buffer.enqueueIfChanged(1L, 1L, true, false)).isTrue();
+        assertThat(buffer.enqueueIfChanged(1L, 1L, true, false)).isFalse();
+        assertThat(buffer.enqueueIfChanged(1L, 1L, false, false)).isTrue();
+        assertThat(buffer.getQueueDepth()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("При остановке буфер дописывает накопленные операции")
+    void stop_Should_Drain_Pending_Operations_Test() throws InterruptedException {
+        // given
+        buffer.start();
+        buffer.enqueue(1L, 1L, true);
+        buffer.enqueue(2L, 1L, false);
+        // when
+        buffer.stop();
+        // then
+        assertThat(storage.added).containsExactly(List.of(new FilmLike(1L, 1L)));
+        assertThat(storage.deleted).containsExactly(List.of(new FilmLike(2L, 1L)));
+        assertThat(buffer.getQueueDepth()).isZero();
+        assertThat(events).hasSize(2);
+    }
+
+    /**
+     * Хранилище лайков без БД: запоминает записанные пачки и падает на пачках, подходящих под failing.
+     */
+    private static final class StubFilmLikesStorage extends FilmLikesDbStorage {
+        final List<List<FilmLike>> added = new ArrayList<>();
+        final List<List<FilmLike>> deleted = new ArrayList<>();
+        Predicate<List<FilmLike>> failing = chunk -> false;
+
+        StubFilmLikesStorage() {
+            super(new JdbcTemplate());
+        }
+
+        @Override
+        public List<FilmLike> addLikesIfNotExist(List<FilmLike> likes) {
+            return write(added, likes);
+        }
+
+        @Override
+        public List<FilmLike> deleteLikesIfExist(List<FilmLike> likes) {
+            return write(deleted, likes);
+        }
+
+        private List<FilmLike> write(List<List<FilmLike>> written, List<FilmLike> likes) {
+            if (failing.test(likes)) {
+                throw new DataIntegrityViolationException("Нарушено ограничение");
+            }
+            written.add(List.copyOf(likes));
+            return likes;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Тесты TextTokenizer")
+class TextTokenizerTest {
+
+    @Test
+    @DisplayName("Текст разбивается по небуквенным символам и приводится к нижнему регистру")
+    void tokenize_Should_Split_On_Non_Letters_And_Lowercase_Test() {
+        // given, when, then
+        assertThat(TextTokenizer.tokenize("The Matrix: 1999!")).containsExactly("the", "matrix", "1999");
+    }
+
+    @Test
+    @DisplayName("Разные формы русского слова сводятся к одной основе, «ё» приводится к «е»")
+    void tokenize_Should_Stem_Russian_Word_Forms_Test() {
+        // given, when, then
+        assertThat(TextTokenizer.tokenize("терминатор терминатора терминатору"))
+                .containsOnly("терминатор");
+        assertThat(TextTokenizer.tokenize("Ёжик ежики")).containsOnly("ежик");
+    }
+
+    @Test
+    @DisplayName("Разные формы английского слова сводятся к одной основе")
+    void tokenize_Should_Stem_English_Word_Forms_Test() {
+        // given, when, then
+        assertThat(TextTokenizer.tokenize("running run")).containsOnly("run");
+        assertThat(TextTokenizer.tokenize("stories story")).containsOnly("story");
+        assertThat(TextTokenizer.tokenize("classes class")).containsOnly("class");
+        assertThat(TextTokenizer.tokenize("dogs dog")).containsOnly("dog");
+    }
+
+    @Test
+    @DisplayName("Пустой текст и null дают пустой список термов")
+    void tokenize_Should_Return_Empty_List_For_Blank_Text_Test() {
+        // given, when, then
+        assertThat(TextTokenizer.tokenize(null)).isEmpty();
+        assertThat(TextTokenizer.tokenize(" ,.- ")).isEmpty();
+    }
+}